@@ -0,0 +1,96 @@
+package com.example.account.benchmark;
+
+import com.example.account.AccountApplication;
+import com.example.account.Dto.AccountDto;
+import com.example.account.Dto.TransactionDto;
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * H2 + embedded Redis로 애플리케이션을 띄워서 서비스 메소드를 직접 호출한다.
+ * 컨트롤러와 계좌 락(AOP)은 거치지 않으므로 서비스와 JPA 비용만 측정된다. 락과 대기열을 거친 처리량은 AdmissionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AccountServiceBenchmark {
+    private static final int MAX_ACCOUNT_PER_USER = 10;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private TransactionService transactionService;
+    private AccountUserRepository accountUserRepository;
+
+    private Long userId;
+    private String accountNumber;
+    private String transactionId;
+
+    private Long createUserId;
+    private int createdAccounts;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.redis.port=6392",
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        accountService = context.getBean(AccountService.class);
+        transactionService = context.getBean(TransactionService.class);
+        accountUserRepository = context.getBean(AccountUserRepository.class);
+
+        userId = newUser();
+        AccountDto account = accountService.createAccount(userId, Long.MAX_VALUE / 2);
+        accountNumber = account.getAccountNumber();
+        transactionId = transactionService.useBalance(userId, accountNumber, 1L).getTransactionId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionDto useBalance() {
+        return transactionService.useBalance(userId, accountNumber, 1L);
+    }
+
+    @Benchmark
+    public TransactionDto cancelBalance() {
+        //같은 원거래를 반복해서 취소, 취소 여부는 검증하지 않으므로 매번 성공한다.
+        return transactionService.cancelBalance(transactionId, accountNumber, 1L);
+    }
+
+    @Benchmark
+    public AccountDto createAccount() {
+        //사용자당 계좌는 10개까지이므로 10번마다 새 사용자를 만든다. (사용자 저장 비용이 1/10 포함됨)
+        if (createUserId == null || createdAccounts == MAX_ACCOUNT_PER_USER) {
+            createUserId = newUser();
+            createdAccounts = 0;
+        }
+        createdAccounts++;
+        return accountService.createAccount(createUserId, 0L);
+    }
+
+    private Long newUser() {
+        return accountUserRepository.save(AccountUser.builder()
+                .name("benchmark")
+                .build()).getId();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.account.benchmark;
+
+import com.example.account.AccountApplication;
+import com.example.account.Dto.AccountDto;
+import com.example.account.Dto.UseBalance;
+import com.example.account.controller.TransactionController;
+import com.example.account.domain.AccountUser;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.service.AccountService;
+import com.example.account.service.LockService;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 한 계좌에 /transaction/use 요청이 몰릴 때의 처리량
+ * admission : 컨트롤러 bean을 호출해서 LockAopAspect(AdmissionService 대기열 + LockService 락)를 거친다.
+ * sleepAndLock : 이전 방식, 락을 잡은 채로 sleepMillis 동안 멈춘 뒤 잔액을 사용한다. (tryLock 1초, lease 15초)
+ * 락을 기다리다 실패한 요청은 rejected로 따로 센다.
+ * ./gradlew jmh -Pjmh.includes=AdmissionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class AdmissionBenchmark {
+    //이전 컨트롤러의 Thread.sleep(3000L)
+    @Param({"3000"})
+    public long sleepMillis;
+
+    private ConfigurableApplicationContext context;
+    private TransactionController transactionController;
+    private TransactionService transactionService;
+    private LockService lockService;
+
+    private Long userId;
+    private String accountNumber;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Result {
+        public long success;
+        public long rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            success = 0;
+            rejected = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.redis.port=6393",
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        transactionController = context.getBean(TransactionController.class);
+        transactionService = context.getBean(TransactionService.class);
+        lockService = context.getBean(LockService.class);
+
+        userId = context.getBean(AccountUserRepository.class)
+                .save(AccountUser.builder().name("admission").build()).getId();
+        AccountDto account = context.getBean(AccountService.class).createAccount(userId, 1000_000_000L);
+        accountNumber = account.getAccountNumber();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void admission(Result result) {
+        try {
+            transactionController.useBalance(new UseBalance.Request(userId, accountNumber, 1L));
+            result.success++;
+        } catch (AccountException e) {
+            result.rejected++;
+        }
+    }
+
+    @Benchmark
+    public void sleepAndLock(Result result) throws InterruptedException {
+        long lockedAt;
+        try {
+            lockedAt = lockService.Lock(accountNumber, 1000L, 15000L);
+        } catch (AccountException e) {
+            result.rejected++;
+            return;
+        }
+        try {
+            Thread.sleep(sleepMillis);
+            transactionService.useBalance(userId, accountNumber, 1L);
+            result.success++;
+        } finally {
+            lockService.unLock(accountNumber, lockedAt);
+        }
+    }
+}
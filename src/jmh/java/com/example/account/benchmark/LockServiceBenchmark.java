@@ -0,0 +1,79 @@
+package com.example.account.benchmark;
+
+import com.example.account.service.AccountLockProvider;
+import com.example.account.service.AccountMetrics;
+import com.example.account.service.LocalAccountLockProvider;
+import com.example.account.service.LockService;
+import com.example.account.service.RedisAccountLockProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LockService lock/unlock 한 쌍의 비용
+ * redis : embedded Redis + Redisson, local : 프로세스 내 락 (lease는 쓰지 않음)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LockServiceBenchmark {
+    private static final int REDIS_PORT = 6391;
+    private static final String ACCOUNT_NUMBER = "1000000008";
+
+    @Param({"redis", "local"})
+    public String provider;
+
+    //-1 : watchdog이 연장, 그 외 : 고정 lease(ms)
+    @Param({"-1", "15000"})
+    public long leaseMillis;
+
+    private RedisServer redisServer;
+    private RedissonClient redissonClient;
+    private LockService lockService;
+
+    @Setup
+    public void setUp() {
+        AccountLockProvider accountLockProvider;
+        if ("redis".equals(provider)) {
+            redisServer = new RedisServer(REDIS_PORT);
+            redisServer.start();
+
+            Config config = new Config();
+            config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+            redissonClient = Redisson.create(config);
+            accountLockProvider = new RedisAccountLockProvider(redissonClient);
+        } else {
+            accountLockProvider = new LocalAccountLockProvider(1024);
+        }
+        lockService = new LockService(accountLockProvider, new AccountMetrics(new SimpleMeterRegistry()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (redissonClient != null) {
+            redissonClient.shutdown();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @Benchmark
+    public void lockAndUnlock() {
+        long lockedAt = lockService.Lock(ACCOUNT_NUMBER, 1000L, leaseMillis);
+        lockService.unLock(ACCOUNT_NUMBER, lockedAt);
+    }
+}
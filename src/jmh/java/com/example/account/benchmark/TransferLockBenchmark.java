@@ -0,0 +1,93 @@
+package com.example.account.benchmark;
+
+import com.example.account.service.AccountLockProvider;
+import com.example.account.service.AccountMetrics;
+import com.example.account.service.LocalAccountLockProvider;
+import com.example.account.service.LockService;
+import com.example.account.service.RedisAccountLockProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 두 계좌 사이의 양방향 이체가 몰릴 때 LockService.lockAll/unlockAll 처리량
+ * A->B 쓰레드와 B->A 쓰레드가 동시에 락을 잡는다. 순서를 정하지 않으면 여기서 서로를 기다리며 멈춘다.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransferLockBenchmark {
+    private static final int REDIS_PORT = 6392;
+    private static final List<String> A_TO_B = Arrays.asList("1000000008", "1000000016");
+    private static final List<String> B_TO_A = Arrays.asList("1000000016", "1000000008");
+
+    @Param({"redis", "local"})
+    public String provider;
+
+    private RedisServer redisServer;
+    private RedissonClient redissonClient;
+    private LockService lockService;
+
+    @Setup
+    public void setUp() {
+        AccountLockProvider accountLockProvider;
+        if ("redis".equals(provider)) {
+            redisServer = new RedisServer(REDIS_PORT);
+            redisServer.start();
+
+            Config config = new Config();
+            config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+            redissonClient = Redisson.create(config);
+            accountLockProvider = new RedisAccountLockProvider(redissonClient);
+        } else {
+            accountLockProvider = new LocalAccountLockProvider(1024);
+        }
+        lockService = new LockService(accountLockProvider, new AccountMetrics(new SimpleMeterRegistry()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (redissonClient != null) {
+            redissonClient.shutdown();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @Benchmark
+    @Group("hotPair")
+    @GroupThreads(4)
+    public void transferAToB() {
+        transfer(A_TO_B);
+    }
+
+    @Benchmark
+    @Group("hotPair")
+    @GroupThreads(4)
+    public void transferBToA() {
+        transfer(B_TO_A);
+    }
+
+    private void transfer(List<String> accountNumbers) {
+        long lockedAt = lockService.lockAll(accountNumbers, 5000L, LockService.WATCHDOG_LEASE);
+        lockService.unlockAll(accountNumbers, lockedAt);
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.account.loadtest;
+
+import com.example.account.AccountApplication;
+import com.example.account.Dto.CancelBalance;
+import com.example.account.Dto.Transfer;
+import com.example.account.Dto.UseBalance;
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.service.AccountService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 핫 계좌 경합을 재현하는 부하 테스트
+ * H2 + embedded Redis로 애플리케이션을 띄우고 사용자/계좌를 만든 뒤,
+ * Zipf 분포로 고른 계좌에 잔액 사용/취소/거래 조회 요청을 동시에 보낸다.
+ * 이체는 받는 계좌도 Zipf 분포로 고르므로 상위 계좌 쌍 사이에서 양방향 이체가 몰린다. (락 순서 경합)
+ * 결과(처리량, p50/p99/p999, 락 실패율, 동시 요청당 메모리)는 JSON 파일로 남긴다.
+ *
+ * ./gradlew loadTest -PloadTest.users=100 -PloadTest.zipf=1.2 -PloadTest.concurrency=64
+ * ./gradlew loadTest -PloadTest.transferPercent=50 -PloadTest.zipf=1.5 (핫 계좌 쌍 이체)
+ * ./gradlew loadTest -Ploom -PloadTest.concurrency=2000 (가상 쓰레드, 플랫폼 쓰레드 모드는 Tomcat 쓰레드 200개까지만 동시에 처리)
+ */
+public class LoadTestRunner {
+    private static final String[] OPERATIONS = {"use", "cancel", "query", "transfer"};
+    private static final int USE = 0;
+    private static final int CANCEL = 1;
+    private static final int QUERY = 2;
+    private static final int TRANSFER = 3;
+    private static final String LOCK_FAILED = "ACCOUNT_TRANSACTION_LOCK";
+
+    private final int users = Integer.getInteger("loadTest.users", 100);
+    private final int accountsPerUser = Integer.getInteger("loadTest.accountsPerUser", 10);
+    private final int requests = Integer.getInteger("loadTest.requests", 100_000);
+    private final int concurrency = Integer.getInteger("loadTest.concurrency", 64);
+    private final double skew = Double.parseDouble(System.getProperty("loadTest.zipf", "1.1"));
+    private final int cancelPercent = Integer.getInteger("loadTest.cancelPercent", 10);
+    private final int queryPercent = Integer.getInteger("loadTest.queryPercent", 10);
+    private final int transferPercent = Integer.getInteger("loadTest.transferPercent", 0);
+    private final boolean virtualThreads = Boolean.getBoolean("account.virtual-threads.enabled");
+    private final Path reportPath = Paths.get(System.getProperty("loadTest.report", "build/reports/load-test/report.json"));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private String baseUrl;
+    private List<Long> owners;
+    private List<String> accountNumbers;
+    private AtomicReferenceArray<String> lastTransactionIds;
+    private ZipfSampler sampler;
+
+    //요청 순번별 결과, 각 칸은 한 쓰레드만 쓴다.
+    private long[] latencies;
+    private int[] operations;
+    private boolean[] failed;
+    private boolean[] lockFailed;
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(AccountApplication.class)
+                .properties("server.port=0",
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "logging.level.root=WARN")
+                .run(args);
+        try {
+            new LoadTestRunner().run(context);
+        } finally {
+            context.close();
+        }
+    }
+
+    private void run(ConfigurableApplicationContext context) throws Exception {
+        baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        seed(context.getBean(AccountUserRepository.class), context.getBean(AccountService.class));
+
+        latencies = new long[requests];
+        operations = new int[requests];
+        failed = new boolean[requests];
+        lockFailed = new boolean[requests];
+
+        sampler = new ZipfSampler(accountNumbers.size(), skew);
+        AtomicInteger sequence = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(concurrency);
+        ResourceSampler resourceSampler = new ResourceSampler();
+        resourceSampler.start();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            executorService.submit(() -> {
+                for (int n = sequence.getAndIncrement(); n < requests; n = sequence.getAndIncrement()) {
+                    execute(n, sampler.next());
+                }
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.HOURS);
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        resourceSampler.stop();
+
+        writeReport(elapsedSeconds, resourceSampler);
+    }
+
+    private void seed(AccountUserRepository accountUserRepository, AccountService accountService) {
+        owners = new ArrayList<>();
+        accountNumbers = new ArrayList<>();
+        for (int u = 0; u < users; u++) {
+            Long userId = accountUserRepository.save(AccountUser.builder()
+                    .name("load-test-" + u)
+                    .build()).getId();
+            for (int a = 0; a < accountsPerUser; a++) {
+                owners.add(userId);
+                accountNumbers.add(accountService.createAccount(userId, 1_000_000_000_000L).getAccountNumber());
+            }
+        }
+        lastTransactionIds = new AtomicReferenceArray<>(accountNumbers.size());
+    }
+
+    private void execute(int n, int account) {
+        int operation = chooseOperation(account);
+        String accountNumber = accountNumbers.get(account);
+
+        long start = System.nanoTime();
+        JsonNode body;
+        try {
+            switch (operation) {
+                case CANCEL:
+                    body = post("/transaction/cancel",
+                            new CancelBalance.Request(lastTransactionIds.get(account), accountNumber, 1L));
+                    break;
+                case QUERY:
+                    body = get("/transaction/" + lastTransactionIds.get(account));
+                    break;
+                case TRANSFER:
+                    body = post("/transaction/transfer", new Transfer.Request(owners.get(account), accountNumber,
+                            accountNumbers.get(counterparty(account)), 1L));
+                    break;
+                default:
+                    body = post("/transaction/use", new UseBalance.Request(owners.get(account), accountNumber, 1L));
+            }
+        } catch (Exception e) {
+            body = null;
+        }
+        latencies[n] = System.nanoTime() - start;
+        operations[n] = operation;
+
+        //실패 응답도 200으로 오고 errorCode가 들어있다.
+        if (body == null || body.hasNonNull("errorCode")) {
+            failed[n] = true;
+            lockFailed[n] = body != null && LOCK_FAILED.equals(body.get("errorCode").asText());
+        } else if (operation == USE) {
+            lastTransactionIds.set(account, body.get("transactionId").asText());
+        }
+    }
+
+    private int chooseOperation(int account) {
+        //아직 거래가 없는 계좌는 사용부터
+        if (lastTransactionIds.get(account) == null) {
+            return USE;
+        }
+        int dice = ThreadLocalRandom.current().nextInt(100);
+        if (dice < cancelPercent) {
+            return CANCEL;
+        }
+        if (dice < cancelPercent + queryPercent) {
+            return QUERY;
+        }
+        return dice < cancelPercent + queryPercent + transferPercent ? TRANSFER : USE;
+    }
+
+    //받는 계좌도 Zipf로 뽑아서 핫 계좌끼리 서로 이체하게 만든다.
+    private int counterparty(int account) {
+        if (accountNumbers.size() < 2) {
+            throw new IllegalStateException("transfer needs at least two accounts");
+        }
+        int counterparty = sampler.next();
+        while (counterparty == account) {
+            counterparty = sampler.next();
+        }
+        return counterparty;
+    }
+
+    private JsonNode post(String path, Object request) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(request)))
+                .build());
+    }
+
+    private JsonNode get(String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build());
+    }
+
+    private JsonNode send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private void writeReport(double elapsedSeconds, ResourceSampler resourceSampler) throws IOException {
+        ObjectNode report = objectMapper.createObjectNode();
+        ObjectNode config = report.putObject("config");
+        config.put("users", users);
+        config.put("accounts", accountNumbers.size());
+        config.put("requests", requests);
+        config.put("concurrency", concurrency);
+        config.put("zipf", skew);
+        config.put("cancelPercent", cancelPercent);
+        config.put("queryPercent", queryPercent);
+        config.put("transferPercent", transferPercent);
+        config.put("virtualThreads", virtualThreads);
+
+        report.put("elapsedSeconds", elapsedSeconds);
+        report.put("throughput", requests / elapsedSeconds);
+        report.set("total", summary(-1, elapsedSeconds));
+        report.set("memory", resourceSampler.report(objectMapper, concurrency));
+        ObjectNode byOperation = report.putObject("operations");
+        for (int operation = 0; operation < OPERATIONS.length; operation++) {
+            byOperation.set(OPERATIONS[operation], summary(operation, elapsedSeconds));
+        }
+
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), report);
+        System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+    }
+
+    //operation = -1 이면 전체
+    private ObjectNode summary(int operation, double elapsedSeconds) {
+        long[] selected = new long[requests];
+        int count = 0;
+        int failures = 0;
+        int lockFailures = 0;
+        for (int n = 0; n < requests; n++) {
+            if (operation >= 0 && operations[n] != operation) {
+                continue;
+            }
+            selected[count++] = latencies[n];
+            failures += failed[n] ? 1 : 0;
+            lockFailures += lockFailed[n] ? 1 : 0;
+        }
+        long[] sorted = Arrays.copyOf(selected, count);
+        Arrays.sort(sorted);
+
+        ObjectNode summary = objectMapper.createObjectNode();
+        summary.put("count", count);
+        summary.put("throughput", count / elapsedSeconds);
+        summary.put("failures", failures);
+        summary.put("lockFailures", lockFailures);
+        summary.put("lockFailureRate", count == 0 ? 0 : (double) lockFailures / count);
+        summary.put("p50Millis", percentile(sorted, 0.5));
+        summary.put("p99Millis", percentile(sorted, 0.99));
+        summary.put("p999Millis", percentile(sorted, 0.999));
+        summary.put("maxMillis", count == 0 ? 0 : sorted[count - 1] / 1_000_000.0);
+        return summary;
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
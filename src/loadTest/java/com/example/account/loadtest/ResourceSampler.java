@@ -0,0 +1,63 @@
+package com.example.account.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 부하 중 heap 사용량과 플랫폼 쓰레드 수를 주기적으로 기록한다.
+ * 가상 쓰레드의 스택은 heap에, 플랫폼 쓰레드의 스택은 heap 밖(쓰레드당 -Xss)에 잡히므로 두 값을 같이 본다.
+ * 클라이언트도 같은 JVM에서 돌기 때문에 두 모드를 같은 설정으로 실행해서 차이로 비교한다.
+ */
+class ResourceSampler {
+    private static final long INTERVAL_MILLIS = 100;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private long baselineHeap;
+    private int baselineThreads;
+    //scheduler 쓰레드만 쓰고, stop() 이후에만 읽는다.
+    private long heapSum;
+    private long peakHeap;
+    private int samples;
+
+    void start() {
+        System.gc();
+        baselineHeap = memory.getHeapMemoryUsage().getUsed();
+        baselineThreads = threads.getThreadCount();
+        scheduler.scheduleAtFixedRate(this::sample, 0, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    ObjectNode report(ObjectMapper objectMapper, int inFlight) {
+        long averageHeap = samples == 0 ? baselineHeap : heapSum / samples;
+
+        ObjectNode report = objectMapper.createObjectNode();
+        report.put("baselineHeapMb", baselineHeap / 1024.0 / 1024.0);
+        report.put("averageHeapMb", averageHeap / 1024.0 / 1024.0);
+        report.put("peakHeapMb", peakHeap / 1024.0 / 1024.0);
+        report.put("heapPerInFlightKb", Math.max(0, averageHeap - baselineHeap) / 1024.0 / inFlight);
+        report.put("baselineThreads", baselineThreads);
+        report.put("peakThreads", threads.getPeakThreadCount());
+        return report;
+    }
+
+    private void sample() {
+        long used = memory.getHeapMemoryUsage().getUsed();
+        heapSum += used;
+        peakHeap = Math.max(peakHeap, used);
+        samples++;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.account.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 0 ~ size-1 사이의 값을 Zipf 분포로 뽑는다. 0번이 가장 자주 뽑히는 계좌가 된다.
+ * skew = 0 이면 균등 분포
+ */
+public class ZipfSampler {
+    private final double[] cdf;
+
+    public ZipfSampler(int size, double skew) {
+        cdf = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1.0 / Math.pow(i + 1, skew);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    public int next() {
+        int index = Arrays.binarySearch(cdf, ThreadLocalRandom.current().nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+    }
+}
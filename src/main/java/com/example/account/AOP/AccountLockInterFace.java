@@ -1,5 +1,20 @@
 package com.example.account.AOP;
 
+import com.example.account.type.TransactionType;
+
+import java.util.Collections;
+import java.util.List;
+
 public interface AccountLockInterFace {
     String getAccountNumber();
+
+    Long getAmount();
+
+    //락 단계에서 실패해서 컨트롤러가 기록하지 못한 요청의 실패 거래 종류
+    TransactionType failedTransactionType();
+
+    //여러 계좌를 함께 바꾸는 요청(이체)은 모든 계좌의 락을 잡는다.
+    default List<String> lockAccountNumbers() {
+        return Collections.singletonList(getAccountNumber());
+    }
 }
@@ -10,5 +10,9 @@ import java.lang.annotation.*;
 
 
 public @interface accountLock {
+    //락을 기다리는 최대 시간(ms)
     long tryLockTime() default 5000L;
+
+    //락 유지 시간(ms), -1이면 처리가 끝날 때까지 watchdog이 계속 연장한다.
+    long leaseTime() default -1L;
 }
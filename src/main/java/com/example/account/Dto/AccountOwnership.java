@@ -0,0 +1,17 @@
+package com.example.account.Dto;
+
+import com.example.account.type.AccountStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 거래 검증에 필요한 계좌 정보만 담은 조회 전용 객체
+ * account_user를 join 하지 않고 account 테이블의 FK만 읽는다.
+ */
+@Getter
+@AllArgsConstructor
+public class AccountOwnership {
+    private final Long accountId;
+    private final Long ownerId;
+    private final AccountStatus accountStatus;
+}
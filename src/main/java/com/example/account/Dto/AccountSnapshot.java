@@ -0,0 +1,25 @@
+package com.example.account.Dto;
+
+import com.example.account.type.AccountStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * GET /account/{id} 응답용 계좌 정보
+ * 엔티티 대신 필요한 컬럼만 담아서 캐시하고 그대로 응답한다.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class AccountSnapshot {
+    private final Long id;
+    private final Long userId;
+    private final String accountNumber;
+    private final AccountStatus accountStatus;
+    private final Long balance;
+    private final LocalDateTime registeredAt;
+    private final LocalDateTime unRegisteredAt;
+}
@@ -2,6 +2,7 @@ package com.example.account.Dto;
 
 import com.example.account.AOP.AccountLockInterFace;
 import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
 import lombok.*;
 
 import javax.validation.constraints.*;
@@ -33,6 +34,10 @@ public class CancelBalance {
         @Max(1000_000_000)
         private Long amount;// 초기금액
 
+        @Override
+        public TransactionType failedTransactionType() {
+            return TransactionType.CANCEL;
+        }
     }
 
     //Response
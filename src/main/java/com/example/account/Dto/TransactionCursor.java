@@ -0,0 +1,42 @@
+package com.example.account.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 거래 내역 페이지 커서, 이전 페이지 마지막 거래의 (거래일시, id)
+ * 클라이언트에는 내용을 알 수 없는 문자열로 노출한다.
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionCursor {
+    private static final String SEPARATOR = ",";
+
+    private final LocalDateTime transactedAt;
+    private final Long id;
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((transactedAt + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 형식이 맞지 않으면 IllegalArgumentException
+     */
+    public static TransactionCursor decode(String cursor) {
+        String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("invalid cursor : " + cursor);
+        }
+        try {
+            return new TransactionCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("invalid cursor : " + cursor, e);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.account.Dto;
 
 
 import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIdCodec;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.*;
@@ -24,14 +25,31 @@ public class TransactionDto {
     private LocalDateTime transactedAt;//거래일시
 
     public static TransactionDto fromEntity(Transaction transaction){
+        return fromEntity(transaction, transaction.getAccount().getAccountNumber());
+    }
+
+    //계좌를 조회하지 않고 저장한 거래는 계좌번호를 따로 받는다.
+    public static TransactionDto fromEntity(Transaction transaction, String accountNumber){
         return TransactionDto.builder()
-                .accountNumber(transaction.getAccount().getAccountNumber())
+                .accountNumber(accountNumber)
                 .transactionType(transaction.getTransactionType())
                 .transactionResultType(transaction.getTransactionResultType())
                 .amount(transaction.getAmount())
                 .balanceSnapshot(transaction.getBalanceSnapshot())
-                .transactionId(transaction.getTransactionId())
+                .transactionId(TransactionIdCodec.encode(transaction.getTransactionId()))
                 .transactedAt(transaction.getTransactedAt())
                 .build();
     }
+
+    public static TransactionDto fromView(TransactionView view){
+        return TransactionDto.builder()
+                .accountNumber(view.getAccountNumber())
+                .transactionType(view.getTransactionType())
+                .transactionResultType(view.getTransactionResultType())
+                .amount(view.getAmount())
+                .balanceSnapshot(view.getBalanceSnapshot())
+                .transactionId(TransactionIdCodec.encode(view.getTransactionId()))
+                .transactedAt(view.getTransactedAt())
+                .build();
+    }
 }
@@ -0,0 +1,61 @@
+package com.example.account.Dto;
+
+import com.example.account.domain.TransactionIdCodec;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * GET /account/{accountNumber}/transactions 응답
+ * 최신 거래부터 내려주고, 다음 페이지가 있으면 nextCursor를 다음 요청의 cursor로 보낸다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionHistory {
+    private List<Item> transactions;
+    private String nextCursor;//마지막 페이지면 null
+
+    public static TransactionHistory from(List<TransactionHistoryItem> items, boolean hasNext) {
+        TransactionHistoryItem last = items.isEmpty() ? null : items.get(items.size() - 1);
+        return TransactionHistory.builder()
+                .transactions(items.stream()
+                        .map(Item::from)
+                        .collect(Collectors.toList()))
+                .nextCursor(hasNext && last != null
+                        ? new TransactionCursor(last.getTransactedAt(), last.getId()).encode()
+                        : null)
+                .build();
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+        private TransactionType transactionType;
+        private TransactionResultType transactionResult;
+        private String transactionId;
+        private Long amount;
+        private Long balanceSnapshot;
+        private LocalDateTime transactedAt;
+
+        public static Item from(TransactionHistoryItem item) {
+            return Item.builder()
+                    .transactionType(item.getTransactionType())
+                    .transactionResult(item.getTransactionResultType())
+                    .transactionId(TransactionIdCodec.encode(item.getTransactionId()))
+                    .amount(item.getAmount())
+                    .balanceSnapshot(item.getBalanceSnapshot())
+                    .transactedAt(item.getTransactedAt())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.account.Dto;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 거래 내역 조회 전용 객체, id는 다음 페이지 커서에만 쓴다.
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionHistoryItem {
+    private final Long id;
+    private final TransactionType transactionType;
+    private final TransactionResultType transactionResultType;
+    private final Long amount;
+    private final Long balanceSnapshot;
+    private final Long transactionId;
+    private final LocalDateTime transactedAt;
+}
@@ -0,0 +1,25 @@
+package com.example.account.Dto;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 거래 조회와 취소 검증에 필요한 값만 담은 조회 전용 객체
+ * transaction과 account만 join 하고, 소유주는 account의 FK로 읽는다.
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionView {
+    private final String accountNumber;
+    private final Long ownerId;
+    private final TransactionType transactionType;
+    private final TransactionResultType transactionResultType;
+    private final Long amount;
+    private final Long balanceSnapshot;
+    private final Long transactionId;
+    private final LocalDateTime transactedAt;
+}
@@ -0,0 +1,100 @@
+package com.example.account.Dto;
+
+import com.example.account.AOP.AccountLockInterFace;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+public class Transfer {
+
+    //Request
+    //{
+    //"userId":1,
+    //"fromAccountNumber":"1000000000",
+    //"toAccountNumber":"1000000001",
+    //"amount":1000
+    //}
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class Request implements AccountLockInterFace {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @Size(min = 10,max = 10)
+        private String fromAccountNumber;
+
+        @NotBlank
+        @Size(min = 10,max = 10)
+        private String toAccountNumber;
+
+        @NotNull
+        @Min(1)
+        @Max(1000_000_000)
+        private Long amount;
+
+        //대기열과 실패 기록은 출금 계좌 기준
+        @JsonIgnore
+        @Override
+        public String getAccountNumber() {
+            return fromAccountNumber;
+        }
+
+        @Override
+        public List<String> lockAccountNumbers() {
+            return Arrays.asList(fromAccountNumber, toAccountNumber);
+        }
+
+        @Override
+        public TransactionType failedTransactionType() {
+            return TransactionType.TRANSFER_OUT;
+        }
+    }
+
+    //Response
+    //{
+    //"fromAccountNumber":"1000000000",
+    //"toAccountNumber":"1000000001",
+    //"transactionResult":"S",
+    //"transactionId":"c2033bb6d82a4250aecf8e27c49b63f6",
+    //"depositTransactionId":"c2033bb6d82a4250aecf8e27c49b63f7",
+    //"amount":1000,
+    //"transactedAt":"2022-06-01T23:26:14.671859"
+    //}
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response{
+        private String fromAccountNumber;
+        private String toAccountNumber;
+        private TransactionResultType transactionResult;
+        private String transactionId;//출금 거래
+        private String depositTransactionId;//입금 거래
+        private Long amount;
+        private LocalDateTime transactedAt;
+
+        public static Response from(TransferDto transferDto){
+            return Response.builder()
+                    .fromAccountNumber(transferDto.getWithdrawal().getAccountNumber())
+                    .toAccountNumber(transferDto.getDeposit().getAccountNumber())
+                    .transactionResult(transferDto.getWithdrawal().getTransactionResultType())
+                    .transactionId(transferDto.getWithdrawal().getTransactionId())
+                    .depositTransactionId(transferDto.getDeposit().getTransactionId())
+                    .amount(transferDto.getWithdrawal().getAmount())
+                    .transactedAt(transferDto.getWithdrawal().getTransactedAt())
+                    .build();
+        }
+    }
+}
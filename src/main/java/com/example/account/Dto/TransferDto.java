@@ -0,0 +1,14 @@
+package com.example.account.Dto;
+
+import lombok.*;
+
+/**
+ * 이체 한 건으로 남은 출금/입금 거래
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+public class TransferDto {
+    private TransactionDto withdrawal;
+    private TransactionDto deposit;
+}
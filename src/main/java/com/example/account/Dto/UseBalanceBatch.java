@@ -0,0 +1,95 @@
+package com.example.account.Dto;
+
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class UseBalanceBatch {
+
+    //Request
+    //{
+    //"items":[
+    //  {"userId":1,"accountNumber":"1000000000","amount":1000},
+    //  {"userId":1,"accountNumber":"1000000000","amount":2000}
+    //]
+    //}
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request {
+        @NotNull
+        @Size(min = 1, max = 1000)
+        private List<@Valid UseBalance.Request> items;
+    }
+
+    //Response
+    //{
+    //"results":[
+    //  {"accountNumber":"1000000000","transactionResult":"S","transactionId":"01GZ3KQ0A8000","amount":1000,...},
+    //  {"accountNumber":"1000000000","transactionResult":"F","errorCode":"AMOUNT_EXCED_BALANCE",...}
+    //]
+    //}
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Response {
+        private List<Result> results;
+
+        public static Response from(List<Result> results) {
+            return new Response(results);
+        }
+    }
+
+    //요청 한 건의 결과, 요청과 같은 순서로 돌려준다.
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Result {
+        private String accountNumber;
+        private TransactionResultType transactionResult;
+        private String transactionId;
+        private Long amount;
+        private LocalDateTime transactedAt;
+        private ErrorCode errorCode;
+
+        public static Result from(TransactionDto transactionDto, ErrorCode errorCode) {
+            return Result.builder()
+                    .accountNumber(transactionDto.getAccountNumber())
+                    .transactionResult(transactionDto.getTransactionResultType())
+                    .transactionId(transactionDto.getTransactionId())
+                    .amount(transactionDto.getAmount())
+                    .transactedAt(transactionDto.getTransactedAt())
+                    .errorCode(errorCode)
+                    .build();
+        }
+
+        //묶음 트랜잭션 밖에서 실패한 건 (락 실패, 계좌 없음 등), 거래 기록은 FailedTransactionRecorder가 따로 남긴다.
+        public static Result fail(UseBalance.Request request, ErrorCode errorCode) {
+            return Result.builder()
+                    .accountNumber(request.getAccountNumber())
+                    .transactionResult(TransactionResultType.F)
+                    .amount(request.getAmount())
+                    .errorCode(errorCode)
+                    .build();
+        }
+
+        public static List<Result> failAll(List<UseBalance.Request> requests, ErrorCode errorCode) {
+            return requests.stream()
+                    .map(request -> fail(request, errorCode))
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -15,10 +15,15 @@ public class RedisRepositoryConfig {
     @Value("${spring.redis.port}")
     private int redisPort;
 
+    //lease 없이 잡은 락의 만료 시간, 락을 가진 동안 1/3마다 연장된다.
+    @Value("${account.lock.watchdog-timeout-ms:30000}")
+    private long lockWatchdogTimeout;
+
     @Bean
     public RedissonClient redissonClient() {
         Config config = new Config();
         config.useSingleServer().setAddress("redis://" + redisHost + ":" + redisPort);
+        config.setLockWatchdogTimeout(lockWatchdogTimeout);
 
         return Redisson.create(config);
     }
@@ -0,0 +1,44 @@
+package com.example.account.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 가상 쓰레드 모드 (account.virtual-threads.enabled=true, JDK 21 이상, ./gradlew -Ploom)
+ * Tomcat 요청을 요청마다 새 가상 쓰레드에서 처리한다.
+ * 요청 쓰레드에서 기다리는 대기열, Redis 락, JDBC도 carrier 쓰레드를 점유하지 않고 기다린다.
+ * 기본 빌드는 Java 11 기준이므로 JDK 21 API는 reflection으로 찾는다.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "account.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+    private final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        log.info("Tomcat requests run on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("account.virtual-threads.enabled=true requires JDK 21 or later", e);
+        }
+    }
+}
@@ -1,16 +1,15 @@
 package com.example.account.controller;
 
 import com.example.account.Dto.AccountDto;
+import com.example.account.Dto.AccountSnapshot;
 import com.example.account.Dto.CreateAccount;
 import com.example.account.Dto.DeleteAccount;
-import com.example.account.domain.Account;
 import com.example.account.service.AccountService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
@@ -35,16 +34,12 @@ public class AccountController {
 
     @GetMapping("/account")
     public List<AccountInfo> getAccountsByUserId(@RequestParam("user_id") Long userId){
-        return  accountService.getAccountByUserId(userId)
-                .stream().map(accountDto -> AccountInfo.builder()
-                        .accountNumber(accountDto.getAccountNumber())
-                        .balance(accountDto.getBalance())
-                        .build())
-                .collect(Collectors.toList());
+        //조회 결과를 그대로 응답으로 쓴다.
+        return accountService.getAccountInfoByUserId(userId);
     }
 
     @GetMapping("/account/{id}")
-    public Account getAccount(@PathVariable Long id){ // PathVariable은 값이 같다면 생략가능
+    public AccountSnapshot getAccount(@PathVariable Long id){ // PathVariable은 값이 같다면 생략가능
         return accountService.getAccount(id);
     }
 
@@ -3,9 +3,15 @@ package com.example.account.controller;
 import com.example.account.AOP.accountLock;
 import com.example.account.Dto.CancelBalance;
 import com.example.account.Dto.QueryTransactionResponse;
+import com.example.account.Dto.TransactionHistory;
+import com.example.account.Dto.Transfer;
 import com.example.account.Dto.UseBalance;
+import com.example.account.Dto.UseBalanceBatch;
 import com.example.account.exception.AccountException;
+import com.example.account.service.TransactionBatchService;
 import com.example.account.service.TransactionService;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
@@ -14,9 +20,12 @@ import javax.validation.Valid;
 
 /**
  * 잔액 관련 컨트롤러
- * 1. 잔액의 사용
+ * 1. 잔액의 사용 (여러 건 일괄 사용 포함)
  * 2. 잔액 사용 취소
- * 3. 거래 확인
+ * 3. 계좌 간 이체
+ * 4. 거래 확인
+ * 5. 계좌별 거래 내역 (커서 페이지)
+ * 사용/취소/이체 요청에 Idempotency-Key 헤더가 있으면 같은 키의 재시도는 처음 응답을 그대로 돌려준다. (IdempotencyAspect)
  */
 
 
@@ -25,12 +34,12 @@ import javax.validation.Valid;
 @Slf4j
 public class TransactionController {
     private final TransactionService transactionService;
+    private final TransactionBatchService transactionBatchService;
 
     @PostMapping("/transaction/use")
-    @accountLock
-    public UseBalance.Response useBalance(@Valid @RequestBody UseBalance.Request request) throws InterruptedException {
+    @accountLock(tryLockTime = 1000L)
+    public UseBalance.Response useBalance(@Valid @RequestBody UseBalance.Request request) {
         try {
-            Thread.sleep(3000L);
             return UseBalance.Response.from(transactionService.useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount()));
         } catch (AccountException e) {
             log.error("Failed to use balance");
@@ -42,8 +51,14 @@ public class TransactionController {
 
     }
 
+    @PostMapping("/transaction/use/batch")
+    public UseBalanceBatch.Response useBalanceBatch(@Valid @RequestBody UseBalanceBatch.Request request) {
+        //계좌별 락은 TransactionBatchService에서 계좌마다 한 번씩 잡는다.
+        return UseBalanceBatch.Response.from(transactionBatchService.useBalance(request.getItems()));
+    }
+
     @PostMapping("/transaction/cancel")
-    @accountLock
+    @accountLock(tryLockTime = 1000L)
     public CancelBalance.Response useBalance(@Valid @RequestBody CancelBalance.Request request) {
         try {
             return CancelBalance.Response.from(transactionService.cancelBalance(request.getTransactionId(), request.getAccountNumber(), request.getAmount()));
@@ -57,6 +72,31 @@ public class TransactionController {
 
     }
 
+    @PostMapping("/transaction/transfer")
+    @accountLock(tryLockTime = 1000L)
+    public Transfer.Response transfer(@Valid @RequestBody Transfer.Request request) {
+        //출금/입금 두 계좌의 락은 LockAopAspect가 정해진 순서로 잡는다.
+        try {
+            return Transfer.Response.from(transactionService.transfer(request.getUserId(),
+                    request.getFromAccountNumber(), request.getToAccountNumber(), request.getAmount()));
+        } catch (AccountException e) {
+            log.error("Failed to transfer balance");
+
+            transactionService.saveFiledTransferTransaction(request.getFromAccountNumber(), request.getAmount());
+
+            throw e;
+        }
+    }
+
+    @GetMapping("/account/{accountNumber}/transactions")
+    public TransactionHistory getTransactionHistory(@PathVariable String accountNumber,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") int size,
+                                                    @RequestParam(required = false) TransactionType transactionType,
+                                                    @RequestParam(required = false) TransactionResultType transactionResult) {
+        return transactionService.getTransactionHistory(accountNumber, cursor, size, transactionType, transactionResult);
+    }
+
     @GetMapping("transaction/{transactionId}")
     public QueryTransactionResponse queryTransaction(@PathVariable String transactionId){
            return QueryTransactionResponse.from(transactionService.queryTransactionId(transactionId));
@@ -0,0 +1,40 @@
+package com.example.account.controller;
+
+import com.example.account.service.TransactionExportService;
+import com.example.account.type.ExportFormat;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+/**
+ * 정산용 거래 내보내기
+ * GET /transactions/export?from=2022-01-01T00:00:00&to=2022-02-01T00:00:00[&accountNumber=..][&format=CSV]
+ * Content-Length 없이 chunked로 내려간다. archive로 옮긴 거래는 포함되지 않는다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class TransactionExportController {
+    private final TransactionExportService transactionExportService;
+
+    @GetMapping("/transactions/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) String accountNumber,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        StreamingResponseBody body = transactionExportService.export(accountNumber, from, to, format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions." + format.getExtension() + "\"")
+                .body(body);
+    }
+}
@@ -19,12 +19,19 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @EntityListeners({AuditingEntityListener.class})
+@Table(indexes = {
+        @Index(name = "ux_account_account_number", columnList = "account_number", unique = true),
+        @Index(name = "ix_account_user_status", columnList = "account_user_id, account_status")
+})
 public class Account extends BaseEntity{
 
-    @ManyToOne
+    //소유주 id는 FK로 충분한 경우가 많아서 필요할 때만 읽는다.
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_user_id")
     private AccountUser accountUser;
 
     @Enumerated(EnumType.STRING) // ENUM의 원본으로 등록하면 무엇인지 모르기 때문에 String으로 설정
+    @Column(name = "account_status")
     private AccountStatus accountStatus;
 
 
@@ -35,9 +42,14 @@ public class Account extends BaseEntity{
     @LastModifiedDate
     private LocalDateTime unRegisteredAt;
 
+    @Column(name = "account_number")
     private String accountNumber; // 계좌번호
     private Long balance;
 
+    //잔액을 바꿀 때마다 증가, 락이 풀린 뒤에 들어온 갱신은 덮어쓰지 못하고 실패한다.
+    @Version
+    private Long version;
+
     public void useBalance(Long amount){
         if(amount > balance){
             throw new AccountException(ErrorCode.AMOUNT_EXCED_BALANCE);
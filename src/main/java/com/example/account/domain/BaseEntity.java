@@ -1,11 +1,14 @@
 package com.example.account.domain;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.EntityListeners;
+import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
 import java.time.LocalDateTime;
@@ -18,8 +21,20 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public class BaseEntity {
 
+    //엔티티마다 시퀀스(account_seq, transaction_seq, account_user_seq)를 두고 50개씩 미리 받아온다.
+    //IDENTITY와 달리 insert 전에 id를 알 수 있어서 insert를 JDBC batch로 묶을 수 있다.
+    //data.sql의 id와 겹치지 않도록 100부터 시작
     @Id
-    @Generated
+    @GeneratedValue(generator = "pooled_sequence")
+    @GenericGenerator(name = "pooled_sequence",
+            strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "prefer_sequence_per_entity", value = "true"),
+                    @Parameter(name = "sequence_per_entity_suffix", value = "_seq"),
+                    @Parameter(name = "optimizer", value = "pooled-lo"),
+                    @Parameter(name = "initial_value", value = "100"),
+                    @Parameter(name = "increment_size", value = "50")
+            })
     private Long id;
 
     @CreatedDate
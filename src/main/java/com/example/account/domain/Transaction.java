@@ -18,7 +18,13 @@ import java.time.LocalDateTime;
 @Builder
 @Entity
 @EntityListeners(AuditingEntityListener.class)
-
+@Table(indexes = {
+        @Index(name = "ux_transaction_transaction_id", columnList = "transaction_id", unique = true),
+        //계좌별 거래 내역 keyset 페이지 조회
+        @Index(name = "ix_transaction_account_transacted", columnList = "account_id, transacted_at, id"),
+        //월 단위 archive 대상 조회와 삭제
+        @Index(name = "ix_transaction_transacted_at", columnList = "transacted_at")
+})
 
 public class Transaction extends BaseEntity{
 
@@ -29,12 +35,13 @@ public class Transaction extends BaseEntity{
     @Enumerated(EnumType.STRING) // ENUM의 원본으로 등록하면 무엇인지 모르기 때문에 String으로 설정
     private TransactionResultType transactionResultType;
 
-    @ManyToOne//거래가 발생한 계좌(N:1 연결)
+    @ManyToOne(fetch = FetchType.LAZY)//거래가 발생한 계좌(N:1 연결), 필요할 때만 읽는다.
     private Account account;
 
     private Long amount;//금액
     private Long balanceSnapshot;//거래 후 계좌 잔액
-    private String transactionId;//계좌 해지일시
+    @Column(name = "transaction_id")
+    private Long transactionId;//거래번호, API에는 TransactionIdCodec으로 변환해서 노출
     private LocalDateTime transactedAt;//거래일시
 
 }
@@ -0,0 +1,55 @@
+package com.example.account.domain;
+
+import java.util.Arrays;
+
+/**
+ * 거래번호(64bit)와 API에 노출하는 문자열 사이의 변환
+ * Crockford base32 13자리 고정 길이라서 문자열 순서와 숫자 순서가 같다.
+ */
+public final class TransactionIdCodec {
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int LENGTH = 13;
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = i;
+            DECODE[Character.toLowerCase(ALPHABET[i])] = i;
+        }
+    }
+
+    private TransactionIdCodec() {
+    }
+
+    public static String encode(long transactionId) {
+        char[] chars = new char[LENGTH];
+        long rest = transactionId;
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (rest & 31)];
+            rest >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 형식이 맞지 않으면 IllegalArgumentException
+     */
+    public static long decode(String transactionId) {
+        if (transactionId == null || transactionId.length() != LENGTH) {
+            throw new IllegalArgumentException("invalid transactionId : " + transactionId);
+        }
+
+        long value = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = transactionId.charAt(i);
+            int digit = c < DECODE.length ? DECODE[c] : -1;
+            //첫 글자는 남은 4bit만 표현한다.
+            if (digit < 0 || (i == 0 && digit > 15)) {
+                throw new IllegalArgumentException("invalid transactionId : " + transactionId);
+            }
+            value = (value << 5) | digit;
+        }
+        return value;
+    }
+}
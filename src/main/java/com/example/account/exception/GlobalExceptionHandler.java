@@ -5,6 +5,7 @@ import com.example.account.type.ErrorCode;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.tool.schema.extract.spi.DatabaseInformation;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -33,6 +34,13 @@ public class GlobalExceptionHandler {
     }
 
 
+    //락이 풀린 뒤에 커밋하려던 갱신 등 version 충돌
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ErrorResponse handleOptimisticLockingFailureException(OptimisticLockingFailureException e){
+        log.error("OptimisticLockingFailureException is occurred" , e);
+        return new ErrorResponse(ErrorCode.ACCOUNT_CONCURRENT_UPDATE, ErrorCode.ACCOUNT_CONCURRENT_UPDATE.getDescription());
+    }
+
     @ExceptionHandler(Exception.class)
     public ErrorResponse handleException(Exception e){
         log.error("{} is occurred.", e);
@@ -1,18 +1,85 @@
 package com.example.account.repository;
 
+import com.example.account.Dto.AccountOwnership;
+import com.example.account.Dto.AccountSnapshot;
+import com.example.account.controller.AccountInfo;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {// 사용할 Entity , 와 PK
-    Optional<Account> findFirstByOrderByIdDesc();
     Optional<Account> findByAccountNumber(String accountNumber);
     Integer countByAccountUser(AccountUser accountUser);
     List<Account> findByAccountUser(AccountUser accountUser);
 
+    //account_user를 join 하지 않고 FK 값만 읽는다.
+    @Query("select new com.example.account.Dto.AccountOwnership(a.id, a.accountUser.id, a.accountStatus) "
+            + "from Account a where a.accountNumber = :accountNumber")
+    Optional<AccountOwnership> findOwnershipByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query("select new com.example.account.Dto.AccountSnapshot(a.id, a.accountUser.id, a.accountNumber, "
+            + "a.accountStatus, a.balance, a.registeredAt, a.unRegisteredAt) from Account a where a.id = :id")
+    Optional<AccountSnapshot> findSnapshotById(@Param("id") Long id);
+
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
+    //계좌번호는 모두 10자리라 문자열 max가 가장 큰 번호다. (account_number unique 인덱스)
+    @Query("select max(a.accountNumber) from Account a")
+    Optional<String> findMaxAccountNumber();
+
+    //계좌 목록 응답에 필요한 두 컬럼만 읽는다. (account_user_id 인덱스)
+    @Query("select new com.example.account.controller.AccountInfo(a.accountNumber, a.balance) "
+            + "from Account a where a.accountUser.id = :userId order by a.id")
+    List<AccountInfo> findAccountInfoByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("update Account a set a.balance = :balance, a.version = a.version + 1 where a.id = :id")
+    int updateBalance(@Param("id") Long id, @Param("balance") Long balance);
+
+    //읽은 뒤에 다른 거래가 반영되지 않았고(version) 잔액이 충분할 때만 차감, 0이면 충돌
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance - :amount, a.version = a.version + 1 "
+            + "where a.id = :id and a.version = :version and a.balance >= :amount")
+    int debitIfUnchanged(@Param("id") Long id, @Param("version") Long version, @Param("amount") Long amount);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1 "
+            + "where a.id = :id and a.version = :version")
+    int creditIfUnchanged(@Param("id") Long id, @Param("version") Long version, @Param("amount") Long amount);
+
+    //조건 확인과 차감을 update 한 문장으로 처리한다. 0이면 해지됐거나 잔액 부족
+    @Modifying(flushAutomatically = true)
+    @Query("update Account a set a.balance = a.balance - :amount, a.version = a.version + 1 "
+            + "where a.id = :id and a.accountStatus = com.example.account.type.AccountStatus.IN_USE "
+            + "and a.balance >= :amount")
+    int debitIfAvailable(@Param("id") Long id, @Param("amount") Long amount);
+
+    //취소 금액보다 잔액이 적으면 취소하지 않는다. (CANCEL_MUST_FULLY) 0이면 계좌가 없거나 잔액 부족
+    @Modifying(flushAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1 "
+            + "where a.id = :id and a.balance >= :amount")
+    int creditIfCancelable(@Param("id") Long id, @Param("amount") Long amount);
+
+    @Query("select a.balance from Account a where a.id = :id")
+    Optional<Long> findBalanceById(@Param("id") Long id);
+
+    //update 후 같은 트랜잭션에서 잔액을 다시 읽는다. update가 잡은 행 락 때문에 다른 거래가 끼어들지 않는다.
+    //DB 전용 문법(update ... returning 등)을 쓰지 않으므로 H2와 운영 DB에서 똑같이 동작한다. 반영되지 않으면 비어있음
+    default Optional<Long> debitAndGetBalance(Long id, Long amount) {
+        return debitIfAvailable(id, amount) == 0 ? Optional.empty() : findBalanceById(id);
+    }
+
+    default Optional<Long> creditAndGetBalance(Long id, Long amount) {
+        return creditIfCancelable(id, amount) == 0 ? Optional.empty() : findBalanceById(id);
+    }
+
 }
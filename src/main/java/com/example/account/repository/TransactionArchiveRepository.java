@@ -0,0 +1,72 @@
+package com.example.account.repository;
+
+import com.example.account.Dto.TransactionView;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * 보관 기간이 지난 달의 거래를 옮기기 위한 JDBC 조회/삭제
+ * 한 달을 [from, to) 범위 하나로 읽고, 지울 때는 archive block의 거래번호 범위씩 나눠서 지운다.
+ */
+@Repository
+public class TransactionArchiveRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionArchiveRepository(DataSource dataSource,
+                                        @Value("${account.archive.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    public Optional<LocalDateTime> findOldestTransactedAt() {
+        Timestamp oldest = jdbcTemplate.queryForObject(
+                "select min(transacted_at) from transaction", Timestamp.class);
+        return Optional.ofNullable(oldest).map(Timestamp::toLocalDateTime);
+    }
+
+    //archive 파일의 block index를 위해 거래번호 순으로 넘긴다.
+    //PostgreSQL 등은 autocommit이 꺼져 있어야 fetch size 단위 커서를 쓰므로 읽기 전용 트랜잭션 안에서 읽는다.
+    @Transactional(readOnly = true)
+    public void stream(LocalDateTime from, LocalDateTime to, Consumer<TransactionView> consumer) {
+        jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            "select t.transaction_id, a.account_number, a.account_user_id, t.transaction_type, "
+                                    + "t.transaction_result_type, t.amount, t.balance_snapshot, t.transacted_at "
+                                    + "from transaction t join account a on a.id = t.account_id "
+                                    + "where t.transacted_at >= ? and t.transacted_at < ? "
+                                    + "order by t.transaction_id",
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setTimestamp(1, Timestamp.valueOf(from));
+                    statement.setTimestamp(2, Timestamp.valueOf(to));
+                    return statement;
+                },
+                rs -> consumer.accept(new TransactionView(
+                        rs.getString("account_number"),
+                        rs.getLong("account_user_id"),
+                        TransactionType.valueOf(rs.getString("transaction_type")),
+                        TransactionResultType.valueOf(rs.getString("transaction_result_type")),
+                        rs.getLong("amount"),
+                        rs.getLong("balance_snapshot"),
+                        rs.getLong("transaction_id"),
+                        rs.getTimestamp("transacted_at").toLocalDateTime())));
+    }
+
+    //archive에 들어간 거래번호 범위 밖의 행은 남긴다. 범위는 block 하나 크기라서 한 문장이 잡는 행과 undo가 작다.
+    public int delete(LocalDateTime from, LocalDateTime to, long minTransactionId, long maxTransactionId) {
+        return jdbcTemplate.update("delete from transaction where transacted_at >= ? and transacted_at < ? "
+                        + "and transaction_id between ? and ?",
+                Timestamp.valueOf(from), Timestamp.valueOf(to), minTransactionId, maxTransactionId);
+    }
+}
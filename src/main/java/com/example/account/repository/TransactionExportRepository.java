@@ -0,0 +1,79 @@
+package com.example.account.repository;
+
+import com.example.account.Dto.TransactionDto;
+import com.example.account.domain.TransactionIdCodec;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * 거래 내보내기 전용 JDBC 조회
+ * 엔티티와 영속성 컨텍스트를 거치지 않고, forward-only 커서에서 fetch size만큼씩 읽어 한 행씩 넘긴다.
+ * PostgreSQL 등은 autocommit이 꺼져 있어야 fetch size 단위 커서를 쓰므로 읽기 전용 트랜잭션 안에서 읽는다.
+ */
+@Repository
+public class TransactionExportRepository {
+    private static final String SELECT = "select t.transaction_id, a.account_number, t.transaction_type, "
+            + "t.transaction_result_type, t.amount, t.balance_snapshot, t.transacted_at "
+            + "from transaction t join account a on a.id = t.account_id "
+            + "where t.transacted_at >= ? and t.transacted_at < ? ";
+    private static final String ORDER = "order by t.transacted_at, t.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionExportRepository(DataSource dataSource,
+                                       @Value("${account.export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * [from, to) 기간의 거래를 거래일시 순으로 consumer에 넘긴다. accountId가 null이면 전체 계좌
+     */
+    @Transactional(readOnly = true)
+    public void export(Long accountId, LocalDateTime from, LocalDateTime to, Consumer<TransactionDto> consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(toDto(rs));
+        if (accountId == null) {
+            query(SELECT + ORDER, handler, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        } else {
+            //(account_id, transacted_at, id) 인덱스 순서 그대로 읽는다.
+            query(SELECT + "and t.account_id = ? " + ORDER, handler,
+                    Timestamp.valueOf(from), Timestamp.valueOf(to), accountId);
+        }
+    }
+
+    private void query(String sql, RowCallbackHandler handler, Object... args) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, handler);
+    }
+
+    private static TransactionDto toDto(ResultSet rs) throws SQLException {
+        return TransactionDto.builder()
+                .transactionId(TransactionIdCodec.encode(rs.getLong("transaction_id")))
+                .accountNumber(rs.getString("account_number"))
+                .transactionType(TransactionType.valueOf(rs.getString("transaction_type")))
+                .transactionResultType(TransactionResultType.valueOf(rs.getString("transaction_result_type")))
+                .amount(rs.getLong("amount"))
+                .balanceSnapshot(rs.getLong("balance_snapshot"))
+                .transactedAt(rs.getTimestamp("transacted_at").toLocalDateTime())
+                .build();
+    }
+}
@@ -1,13 +1,55 @@
 package com.example.account.repository;
 
 
+import com.example.account.Dto.TransactionHistoryItem;
+import com.example.account.Dto.TransactionView;
 import com.example.account.domain.Transaction;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    Optional<Transaction> findByTransactionId(String transactionId);
+    //조회와 취소 검증용, account_user는 join 하지 않는다.
+    @Query("select new com.example.account.Dto.TransactionView(a.accountNumber, a.accountUser.id, "
+            + "t.transactionType, t.transactionResultType, t.amount, t.balanceSnapshot, t.transactionId, t.transactedAt) "
+            + "from Transaction t join t.account a where t.transactionId = :transactionId")
+    Optional<TransactionView> findViewByTransactionId(@Param("transactionId") Long transactionId);
+
+    String HISTORY_SELECT = "select new com.example.account.Dto.TransactionHistoryItem(t.id, t.transactionType, "
+            + "t.transactionResultType, t.amount, t.balanceSnapshot, t.transactionId, t.transactedAt) "
+            + "from Transaction t where t.account.id = :accountId "
+            + "and (:transactionType is null or t.transactionType = :transactionType) "
+            + "and (:transactionResultType is null or t.transactionResultType = :transactionResultType) ";
+    String HISTORY_ORDER = "order by t.transactedAt desc, t.id desc";
+
+    //계좌의 거래 내역 첫 페이지, 최신 거래부터 (account_id, transacted_at, id) 인덱스 순서로 읽는다.
+    @Query(HISTORY_SELECT + HISTORY_ORDER)
+    List<TransactionHistoryItem> findHistory(@Param("accountId") Long accountId,
+                                             @Param("transactionType") TransactionType transactionType,
+                                             @Param("transactionResultType") TransactionResultType transactionResultType,
+                                             Pageable pageable);
+
+    //커서 다음 페이지, OFFSET 없이 마지막으로 본 (transactedAt, id) 뒤부터 읽는다.
+    @Query(HISTORY_SELECT
+            + "and (t.transactedAt < :transactedAt or (t.transactedAt = :transactedAt and t.id < :id)) "
+            + HISTORY_ORDER)
+    List<TransactionHistoryItem> findHistoryAfter(@Param("accountId") Long accountId,
+                                                  @Param("transactionType") TransactionType transactionType,
+                                                  @Param("transactionResultType") TransactionResultType transactionResultType,
+                                                  @Param("transactedAt") LocalDateTime transactedAt,
+                                                  @Param("id") Long id,
+                                                  Pageable pageable);
+
+    @Query("select t.transactionId from Transaction t where t.transactionId in :transactionIds")
+    List<Long> findExistingTransactionIds(@Param("transactionIds") Collection<Long> transactionIds);
 }
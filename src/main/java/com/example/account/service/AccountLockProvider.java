@@ -0,0 +1,32 @@
+package com.example.account.service;
+
+import java.util.Comparator;
+
+/**
+ * 계좌 단위 락의 구현체
+ * account.lock.provider 설정으로 선택한다.
+ * redis : 여러 노드가 함께 쓰는 Redisson 분산 락 (기본값)
+ * local : 단일 노드용 프로세스 내 락, Redis 왕복이 없다.
+ */
+public interface AccountLockProvider {
+    /**
+     * waitMillis 동안 락을 기다리고, 얻지 못하면 AccountException(ACCOUNT_TRANSACTION_LOCK)
+     * leaseMillis가 음수면 unlock 할 때까지 유지한다. (redis는 watchdog이 연장)
+     */
+    void lock(String accountNumber, long waitMillis, long leaseMillis);
+
+    void unlock(String accountNumber);
+
+    /**
+     * 락 키 prefix, 락 실패 지표의 태그로 쓴다.
+     */
+    String keyPrefix();
+
+    /**
+     * 여러 계좌의 락을 잡을 때의 순서 (LockService.lockAll)
+     * 락 하나가 여러 계좌를 맡는 구현은 그 락의 순서를 먼저 따라야 교착이 생기지 않는다.
+     */
+    default Comparator<String> lockOrder() {
+        return Comparator.naturalOrder();
+    }
+}
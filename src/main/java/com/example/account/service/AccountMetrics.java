@@ -0,0 +1,118 @@
+package com.example.account.service;
+
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 락과 거래 처리 지표 (/actuator/prometheus)
+ * 요청마다 호출되므로 meter는 생성자에서 미리 등록해 두고 여기서는 기록만 한다.
+ */
+@Component
+public class AccountMetrics {
+    private final MeterRegistry meterRegistry;
+
+    private final Timer lockAcquiredWait;
+    private final Timer lockFailedWait;
+    private final Timer lockHold;
+    private final Timer useBalanceValidate;
+    private final Timer useBalanceSave;
+    private final Map<TransactionType, Counter> failedWrites = new EnumMap<>(TransactionType.class);
+    private final Map<TransactionType, Counter> failedDrops = new EnumMap<>(TransactionType.class);
+    //락 키 prefix -> 실패 횟수
+    private final Map<String, Counter> lockFailures = new ConcurrentHashMap<>();
+
+    public AccountMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.lockAcquiredWait = lockWaitTimer("acquired");
+        this.lockFailedWait = lockWaitTimer("failed");
+        this.lockHold = Timer.builder("account.lock.hold")
+                .description("락을 잡고 있던 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.useBalanceValidate = useBalanceTimer("validate");
+        this.useBalanceSave = useBalanceTimer("save");
+        for (TransactionType transactionType : TransactionType.values()) {
+            failedWrites.put(transactionType, failedWriteCounter(transactionType));
+            failedDrops.put(transactionType, failedDropCounter(transactionType));
+        }
+    }
+
+    public void recordLockWait(long nanos, boolean acquired) {
+        (acquired ? lockAcquiredWait : lockFailedWait).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLockHold(long nanos) {
+        lockHold.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void lockFailed(String keyPrefix) {
+        lockFailures.computeIfAbsent(keyPrefix, prefix -> Counter.builder("account.lock.failures")
+                .description("ACCOUNT_TRANSACTION_LOCK 발생 횟수")
+                .tag("prefix", prefix)
+                .register(meterRegistry))
+                .increment();
+    }
+
+    /**
+     * 잔액 사용 시간을 검증(계좌 조회 포함)과 저장(flush, 커밋 포함)으로 나눠서 기록
+     */
+    public void recordUseBalance(long validateNanos, long saveNanos) {
+        useBalanceValidate.record(validateNanos, TimeUnit.NANOSECONDS);
+        useBalanceSave.record(saveNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void failedTransactionWritten(TransactionType transactionType) {
+        failedWrites.get(transactionType).increment();
+    }
+
+    //기록 대기열이 가득 차거나 저장에 실패해서 버린 실패 거래
+    public void failedTransactionDropped(TransactionType transactionType) {
+        failedDrops.get(transactionType).increment();
+    }
+
+    public void monitorFailedTransactionQueue(Collection<?> queue) {
+        Gauge.builder("account.transaction.failed.queue", queue, Collection::size)
+                .description("저장을 기다리는 실패 거래 수")
+                .register(meterRegistry);
+    }
+
+    private Timer lockWaitTimer(String result) {
+        return Timer.builder("account.lock.wait")
+                .description("락을 얻거나 실패하기까지 기다린 시간")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Timer useBalanceTimer(String phase) {
+        return Timer.builder("account.transaction.use")
+                .description("잔액 사용 단계별 처리 시간")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter failedWriteCounter(TransactionType transactionType) {
+        return Counter.builder("account.transaction.failed.writes")
+                .description("실패 거래 기록 횟수")
+                .tag("type", transactionType.name())
+                .register(meterRegistry);
+    }
+
+    private Counter failedDropCounter(TransactionType transactionType) {
+        return Counter.builder("account.transaction.failed.dropped")
+                .description("기록하지 못하고 버린 실패 거래 수")
+                .tag("type", transactionType.name())
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 계좌번호 발급기 (hi/lo)
+ * Redis 카운터를 INCRBY로 blockSize만큼 올려서 번호 구간을 미리 예약하고,
+ * 구간 안의 번호는 메모리에서 하나씩 꺼내 쓴다. 여러 노드가 같은 카운터를 쓰므로 번호가 겹치지 않는다.
+ * 계좌번호 = 9자리 본번호 + Luhn 검증번호 1자리
+ */
+@Slf4j
+@Component
+public class AccountNumberAllocator {
+    private static final String COUNTER_KEY = "ACNO:SEQ";
+    private static final long FIRST_BASE = 100_000_000L;
+    private static final long LAST_BASE = 999_999_999L;
+
+    private final RedissonClient redissonClient;
+    private final AccountRepository accountRepository;
+    private final long blockSize;
+
+    //구간 예약 중에 Redis를 기다리므로 synchronized 대신 사용, 가상 쓰레드가 carrier를 붙잡지 않는다.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    //예약한 구간 [next, limit], 처음에는 비어있다.
+    private long next = 1;
+    private long limit = 0;
+
+    public AccountNumberAllocator(RedissonClient redissonClient,
+                                  AccountRepository accountRepository,
+                                  @Value("${account.number.block-size:100}") long blockSize) {
+        this.redissonClient = redissonClient;
+        this.accountRepository = accountRepository;
+        this.blockSize = blockSize;
+    }
+
+    public String next() {
+        lock.lock();
+        try {
+            if (next > limit) {
+                reserve();
+            }
+
+            long base = next++;
+            return String.valueOf(base) + checkDigit(base);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static int checkDigit(long base) {
+        int sum = 0;
+        boolean doubled = true;
+        for (long rest = base; rest > 0; rest /= 10) {
+            int digit = (int) (rest % 10);
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    private void reserve() {
+        RAtomicLong counter = redissonClient.getAtomicLong(COUNTER_KEY);
+        long hi = counter.addAndGet(blockSize);
+        //카운터가 없었으면(처음 시작, Redis 재시작이나 eviction) 기존 계좌번호 다음부터 다시 시작한다.
+        //다른 노드가 먼저 다시 시작했다면 compareAndSet이 실패하고 그 값에서 다시 예약한다.
+        while (hi - blockSize + 1 < FIRST_BASE) {
+            log.warn("Account number counter was reset ({}), seed from existing accounts", hi);
+            counter.compareAndSet(hi, Math.max(initialBase() - 1, limit));
+            hi = counter.addAndGet(blockSize);
+        }
+
+        if (hi > LAST_BASE) {
+            log.error("Account number exhausted : {}", hi);
+            throw new AccountException(ErrorCode.ACCOUNT_NUMBER_EXHAUSTED);
+        }
+
+        next = hi - blockSize + 1;
+        limit = hi;
+        log.debug("Reserved account number block {} ~ {}", next, limit);
+    }
+
+    //다른 노드가 예약만 하고 아직 쓰지 않은 번호는 알 수 없으므로, 겹치면 계좌번호 unique index에서 막힌다.
+    //발급 순서와 id 순서가 다를 수 있으므로 가장 최근 계좌가 아니라 가장 큰 번호 다음부터 시작한다.
+    private long initialBase() {
+        return accountRepository.findMaxAccountNumber()
+                .map(accountNumber -> Math.max(FIRST_BASE, Long.parseLong(accountNumber) / 10 + 1))
+                .orElse(FIRST_BASE);
+    }
+}
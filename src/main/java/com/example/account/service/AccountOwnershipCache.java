@@ -0,0 +1,66 @@
+package com.example.account.service;
+
+import com.example.account.Dto.AccountOwnership;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * 계좌번호 -> (계좌 id, 소유주 id, 상태) 캐시
+ * 소유주는 바뀌지 않고 상태는 해지할 때만 바뀌므로 해지 시 지우고, 다른 노드는 TTL이 지나면 다시 읽는다.
+ * 적중/실패 횟수는 cache.gets{cache=accountOwnership} 로 확인할 수 있다.
+ */
+@Component
+public class AccountOwnershipCache {
+    private static final String CACHE_NAME = "accountOwnership";
+
+    private final AccountRepository accountRepository;
+    private final Cache<String, AccountOwnership> cache;
+
+    public AccountOwnershipCache(AccountRepository accountRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${account.ownership-cache.max-size:100000}") long maxSize,
+                                 @Value("${account.ownership-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.accountRepository = accountRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public AccountOwnership get(String accountNumber) {
+        //없는 계좌는 캐시에 넣지 않는다.
+        AccountOwnership ownership = cache.get(accountNumber,
+                key -> accountRepository.findOwnershipByAccountNumber(key).orElse(null));
+        if (ownership == null) {
+            throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT);
+        }
+        return ownership;
+    }
+
+    public void evict(String accountNumber) {
+        cache.invalidate(accountNumber);
+
+        //커밋 전에 다른 요청이 이전 상태를 다시 읽어갈 수 있으므로 커밋 후에도 한 번 더 지운다.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(accountNumber);
+                }
+            });
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.account.service;
 
 import com.example.account.Dto.AccountDto;
+import com.example.account.Dto.AccountOwnership;
+import com.example.account.Dto.AccountSnapshot;
+import com.example.account.controller.AccountInfo;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.exception.AccountException;
@@ -9,13 +12,15 @@ import com.example.account.repository.AccountUserRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,6 +28,13 @@ import java.util.stream.Collectors;
 public class AccountService {
     private final AccountRepository accountRepository; //생성자가 아니면 변경 불가능 Singleton
     private final AccountUserRepository accountUserRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountOwnershipCache accountOwnershipCache;
+    private final AccountSnapshotCache accountSnapshotCache;
+
+    //account.engine.enabled=true 일 때만 존재, 해지할 계좌의 잔액은 엔진이 알고 있다.
+    @Autowired(required = false)
+    private BalanceEngine balanceEngine;
 
     /**
      *
@@ -40,10 +52,8 @@ public class AccountService {
 
         validateCreateAccount(accountUser);// 한명이 10개 이상의 계좌를 가질 수 없음
 
-        //정렬을 해서 마지막꺼  + 1 없으면 기본값 1000000000넣어줌
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
-                .orElse("1000000000");
+        //미리 예약해둔 번호 구간에서 꺼내오므로 account 테이블을 조회하지 않는다.
+        String newAccountNumber = accountNumberAllocator.next();
 
         //이제 이렇게 해야 Account에 대한 정보가 accountRepository 를 통해 H2 DB에 저장된다.
         return AccountDto.fromEntity(accountRepository.save(
@@ -60,14 +70,25 @@ public class AccountService {
 
     @Transactional
     public AccountDto deleteAccount(Long userId, String accountNumber) {
-        //사용자 또는 계좌가 없는 경우
-        AccountUser accountUser = getAccountUser(userId); // 존재하지 않는다면 해당 Exception 생성
+        //사용자 또는 계좌가 없는 경우, 소유주와 상태는 먼저 캐시로 걸러낸다.
+        AccountOwnership ownership = accountOwnershipCache.get(accountNumber);
+
+        validateDeleteAccount(userId, ownership.getOwnerId(), ownership.getAccountStatus());
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT));
 
+        //캐시는 다른 노드의 해지를 아직 모를 수 있으므로 같은 트랜잭션에서 읽은 계좌로 한 번 더 확인
+        validateDeleteAccount(userId, account.getAccountUser().getId(), account.getAccountStatus());
 
-        validateDeleteAccount(accountUser, account);
+        if (balanceEngine != null) {
+            //엔진 잔액이 DB보다 앞서 있으므로 잔액 확인과 해지는 엔진 shard에서 한다.
+            balanceEngine.unregister(accountNumber);
+            reopenIfRolledBack(accountNumber);
+        } else if(account.getBalance() > 0){
+            //잔액이 있는 경우 실패 응답
+            throw new AccountException(ErrorCode.BALANCE_IS_NOT_EMPTY);
+        }
 
         //계좌를 해지했음으로 UNREGISTERED
         account.setAccountStatus(AccountStatus.UNREGISTERED);
@@ -75,27 +96,44 @@ public class AccountService {
 
 
         accountRepository.save(account);
+        accountOwnershipCache.evict(accountNumber);
+        accountSnapshotCache.evict(account.getId());
 
         return AccountDto.fromEntity(account);
 
     }
 
+    //해지가 DB에 반영되지 않으면 엔진의 상태도 되돌린다.
+    private void reopenIfRolledBack(String accountNumber) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    balanceEngine.reopen(accountNumber);
+                }
+            }
+        });
+    }
+
     private AccountUser getAccountUser(Long userId) {
         return accountUserRepository.findById(userId)
                 .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
     }
 
 
-    @Transactional
-    public List<AccountDto> getAccountByUserId(Long userId) {
-        AccountUser accountUser = getAccountUser(userId);
-
-        List<Account> accounts = accountRepository.findByAccountUser(accountUser);
-
-        //List<Account> -> List<AccountDto>
-        return accounts.stream()
-                .map(AccountDto::fromEntity)
-                .collect(Collectors.toList());
+    /**
+     * 계좌 목록 응답을 조회 한 번으로 만든다. 엔티티와 AccountDto를 거치지 않는다.
+     * 계좌가 없을 때만 사용자가 있는지 확인한다.
+     */
+    public List<AccountInfo> getAccountInfoByUserId(Long userId) {
+        List<AccountInfo> accounts = accountRepository.findAccountInfoByUserId(userId);
+        if (accounts.isEmpty() && !accountUserRepository.existsById(userId)) {
+            throw new AccountException(ErrorCode.USER_NOT_FOUND);
+        }
+        return accounts;
     }
 
     private void validateCreateAccount(AccountUser accountUser) {// 10개의 계좌를 가지는지 Check
@@ -104,26 +142,24 @@ public class AccountService {
         }
     }
 
-    private void validateDeleteAccount(AccountUser accountUser, Account account){
+    private void validateDeleteAccount(Long userId, Long ownerId, AccountStatus accountStatus){
 
         //사용자 아이디와 계좌 소유주가 다른 경우
-        if(!Objects.equals(accountUser.getId(), account.getAccountUser().getId())){
+        if(!Objects.equals(userId, ownerId)){
+            if(!accountUserRepository.existsById(userId)){
+                throw new AccountException(ErrorCode.USER_NOT_FOUND);
+            }
             throw new AccountException(ErrorCode.USER_ACCOUNT_UNMATCH);
         };
         //계좌가 이미 해지 상태인 경우
-        if(account.getAccountStatus() == AccountStatus.UNREGISTERED){
+        if(accountStatus == AccountStatus.UNREGISTERED){
             throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
         }
-
-        //잔액이 있는 경우 실패 응답>
-        if(account.getBalance() > 0){
-            throw new AccountException(ErrorCode.BALANCE_IS_NOT_EMPTY);
-        }
     }
 
-    @Transactional
-    public Account getAccount(Long id){
-        return accountRepository.findById(id).get();
+    //최근에 읽은 계좌는 캐시에서 바로 돌려준다.
+    public AccountSnapshot getAccount(Long id){
+        return accountSnapshotCache.get(id);
     }
 
 
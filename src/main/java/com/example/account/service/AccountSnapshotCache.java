@@ -0,0 +1,65 @@
+package com.example.account.service;
+
+import com.example.account.Dto.AccountSnapshot;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * 계좌 id -> 최근 계좌 정보 캐시
+ * 잔액이나 상태가 바뀌면 지우고 다음 조회에서 다시 읽는다. 다른 노드에서 바뀐 값은 TTL이 지나면 반영된다.
+ */
+@Component
+public class AccountSnapshotCache {
+    private static final String CACHE_NAME = "accountSnapshot";
+
+    private final AccountRepository accountRepository;
+    private final Cache<Long, AccountSnapshot> cache;
+
+    public AccountSnapshotCache(AccountRepository accountRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${account.snapshot-cache.max-size:10000}") long maxSize,
+                                @Value("${account.snapshot-cache.ttl-seconds:5}") long ttlSeconds) {
+        this.accountRepository = accountRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public AccountSnapshot get(Long id) {
+        //없는 계좌는 캐시에 넣지 않는다.
+        AccountSnapshot snapshot = cache.get(id,
+                key -> accountRepository.findSnapshotById(key).orElse(null));
+        if (snapshot == null) {
+            throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT);
+        }
+        return snapshot;
+    }
+
+    public void evict(Long id) {
+        cache.invalidate(id);
+
+        //커밋 전에 다른 요청이 이전 잔액을 다시 읽어갈 수 있으므로 커밋 후에도 한 번 더 지운다.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 계좌별 요청 대기열
+ * 같은 계좌에 대한 요청은 도착한 순서대로 하나씩 통과시키고,
+ * 대기열이 가득 찼거나 timeout 안에 차례가 오지 않으면 바로 실패시킨다.
+ * 분산 락(LockService)을 잡기 전에 거쳐서 한 노드 안의 요청끼리 Redis 락을 두고 경쟁하지 않게 한다.
+ */
+@Slf4j
+@Service
+public class AdmissionService {
+    private final int maxDepth;
+    private final long timeoutMillis;
+
+    private final ConcurrentHashMap<String, Admission> admissions = new ConcurrentHashMap<>();
+
+    public AdmissionService(@Value("${account.admission.max-depth:32}") int maxDepth,
+                            @Value("${account.admission.timeout-ms:3000}") long timeoutMillis) {
+        this.maxDepth = maxDepth;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public void enter(String accountNumber) {
+        //대기열 등록과 제거는 compute 안에서만 해야 같은 계좌가 두 개의 대기열을 가지지 않는다.
+        Admission admission = admissions.compute(accountNumber, (key, current) -> {
+            Admission target = current == null ? new Admission() : current;
+            target.depth.incrementAndGet();
+            return target;
+        });
+
+        if (admission.depth.get() > maxDepth) {
+            log.error("Admission queue full for accountNumber : {}", accountNumber);
+            release(accountNumber);
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_QUEUE_FULL);
+        }
+
+        boolean acquired = false;
+        try {
+            acquired = admission.turn.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (!acquired) {
+            log.error("Admission timeout for accountNumber : {}", accountNumber);
+            release(accountNumber);
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_TIMEOUT);
+        }
+    }
+
+    public void leave(String accountNumber) {
+        Admission admission = admissions.get(accountNumber);
+        if (admission == null) {
+            return;
+        }
+
+        admission.turn.release();
+        release(accountNumber);
+    }
+
+    public int getDepth(String accountNumber) {
+        Admission admission = admissions.get(accountNumber);
+        return admission == null ? 0 : admission.depth.get();
+    }
+
+    private void release(String accountNumber) {
+        admissions.computeIfPresent(accountNumber,
+                (key, current) -> current.depth.decrementAndGet() == 0 ? null : current);
+    }
+
+    private static class Admission {
+        private final AtomicInteger depth = new AtomicInteger();
+        private final Semaphore turn = new Semaphore(1, true);
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.account.service;
+
+import com.example.account.Dto.TransactionDto;
+import com.example.account.Dto.TransactionView;
+import com.example.account.domain.Account;
+import com.example.account.domain.TransactionIdCodec;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * 메모리 잔액 엔진 (account.engine.enabled=true)
+ * 계좌번호로 shard를 정하고, 각 shard의 잔액은 그 shard의 쓰레드 하나만 읽고 쓴다.
+ * 잔액 검증과 차감은 메모리에서 끝나고, 거래 기록은 journal에 먼저 쓴 뒤 모아서 DB에 반영한다.
+ * 잔액의 원본이 메모리에 있으므로 단일 노드에서만 사용해야 한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.engine.enabled", havingValue = "true")
+public class BalanceEngine {
+    private final AccountRepository accountRepository;
+    private final AccountUserRepository accountUserRepository;
+    private final TransactionRepository transactionRepository;
+    private final BalanceEngineStore balanceEngineStore;
+    private final TransactionArchive transactionArchive;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionJournal transactionJournal;
+    private final long flushIntervalMillis;
+
+    private final Shard[] shards;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+    //DB에 반영되기 전의 거래, 조회와 취소 검증에 사용
+    private final Map<String, TransactionJournal.Entry> pending = new ConcurrentHashMap<>();
+    //DB 반영에 실패해서 다음 flush에 다시 시도할 거래
+    private final List<TransactionJournal.Entry> retry = new ArrayList<>();
+    //journal에 결과를 알 수 없는 기록이 남은 상태, 재시작해서 복구할 때까지 거래를 받지 않는다.
+    private volatile boolean failed;
+
+    public BalanceEngine(AccountRepository accountRepository,
+                         AccountUserRepository accountUserRepository,
+                         TransactionRepository transactionRepository,
+                         BalanceEngineStore balanceEngineStore,
+                         TransactionArchive transactionArchive,
+                         TransactionIdGenerator transactionIdGenerator,
+                         @Value("${account.engine.shards:4}") int shardCount,
+                         @Value("${account.engine.journal-path:./data/journal}") String journalPath,
+                         @Value("${account.engine.journal-sync:true}") boolean journalSync,
+                         @Value("${account.engine.flush-interval-ms:50}") long flushIntervalMillis) throws IOException {
+        this.accountRepository = accountRepository;
+        this.accountUserRepository = accountUserRepository;
+        this.transactionRepository = transactionRepository;
+        this.balanceEngineStore = balanceEngineStore;
+        this.transactionArchive = transactionArchive;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.transactionJournal = new TransactionJournal(Paths.get(journalPath), journalSync);
+        this.flushIntervalMillis = flushIntervalMillis;
+
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        //이전 실행에서 DB에 반영되지 못한 거래를 먼저 반영
+        List<TransactionJournal.Entry> recovered = transactionJournal.recover();
+        if (!recovered.isEmpty()) {
+            log.info("Recover {} journal entries", recovered.size());
+            balanceEngineStore.persist(recovered);
+        }
+        transactionJournal.checkpoint();
+
+        flusher.scheduleWithFixedDelay(this::flushQuietly,
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+        for (Shard shard : shards) {
+            shard.executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        flusher.shutdown();
+        flush();
+        transactionJournal.close();
+    }
+
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        return execute(accountNumber, states -> {
+            AccountState state = getState(states, accountNumber);
+
+            validateUseBalance(state, userId, amount);
+
+            return append(state, USE, amount, state.balance - amount);
+        });
+    }
+
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+        TransactionJournal.Entry original = findOriginal(transactionId);
+
+        return execute(accountNumber, states -> {
+            AccountState state = getState(states, accountNumber);
+
+            validateCancelBalance(original, state, amount);
+
+            return append(state, CANCEL, amount, state.balance + amount);
+        });
+    }
+
+    /**
+     * 계좌 해지 가능 여부를 엔진 잔액으로 확인하고 shard의 상태를 해지로 바꾼다.
+     * DB 잔액은 엔진보다 늦게 반영되므로 DB만 보고 해지하면 잔액이 남은 계좌가 해지될 수 있다.
+     * 해지를 DB에 반영하지 못하면 reopen()으로 되돌려야 한다.
+     */
+    public void unregister(String accountNumber) {
+        execute(accountNumber, states -> {
+            AccountState state = getState(states, accountNumber);
+            if (state.accountStatus != AccountStatus.IN_USE) {
+                throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+            }
+            if (state.balance > 0) {
+                throw new AccountException(ErrorCode.BALANCE_IS_NOT_EMPTY);
+            }
+            state.accountStatus = AccountStatus.UNREGISTERED;
+            return null;
+        });
+    }
+
+    public void reopen(String accountNumber) {
+        execute(accountNumber, states -> {
+            AccountState state = states.get(accountNumber);
+            if (state != null) {
+                state.accountStatus = AccountStatus.IN_USE;
+            }
+            return null;
+        });
+    }
+
+    public Optional<TransactionDto> findPending(String transactionId) {
+        return Optional.ofNullable(pending.get(transactionId)).map(BalanceEngine::toDto);
+    }
+
+    /**
+     * journal에 쌓인 거래를 한 번에 DB에 반영한다.
+     */
+    public synchronized void flush() throws IOException {
+        List<TransactionJournal.Entry> batch = new ArrayList<>(retry);
+        batch.addAll(transactionJournal.rotate());
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            balanceEngineStore.persist(batch);
+        } catch (RuntimeException e) {
+            retry.clear();
+            retry.addAll(batch);
+            throw e;
+        }
+        retry.clear();
+
+        transactionJournal.checkpoint();
+        batch.forEach(entry -> pending.remove(entry.getTransactionId()));
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to flush balance engine journal", e);
+        }
+    }
+
+    private <T> T execute(String accountNumber, Function<Map<String, AccountState>, T> task) {
+        if (failed) {
+            throw new AccountException(ErrorCode.BALANCE_ENGINE_FAILED);
+        }
+        Shard shard = shards[Math.floorMod(accountNumber.hashCode(), shards.length)];
+        try {
+            return shard.executor.submit(() -> task.apply(shard.states)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_TIMEOUT);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private AccountState getState(Map<String, AccountState> states, String accountNumber) {
+        AccountState state = states.get(accountNumber);
+        if (state == null) {
+            Account account = accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT));
+            state = new AccountState(account.getId(), account.getAccountUser().getId(),
+                    account.getAccountNumber(), account.getAccountStatus(), account.getBalance());
+            states.put(accountNumber, state);
+        }
+        return state;
+    }
+
+    private void validateUseBalance(AccountState state, Long userId, Long amount) {
+        //사용자 아이디와 계좌 소유주가 다른 경우
+        if (!Objects.equals(state.ownerId, userId)) {
+            if (!accountUserRepository.existsById(userId)) {
+                throw new AccountException(ErrorCode.USER_NOT_FOUND);
+            }
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UNMATCH);
+        }
+        //계좌가 이미 해지 상태인 경우
+        if (state.accountStatus != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        //거래 금액이 잔액보다 큰경우
+        if (state.balance < amount) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCED_BALANCE);
+        }
+    }
+
+    private void validateCancelBalance(TransactionJournal.Entry original, AccountState state, Long amount) {
+        //사용자 아이디와 계좌 소유주가 다른 경우
+        if (!Objects.equals(original.getOwnerId(), state.ownerId)) {
+            throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
+        }
+        //해지한 계좌에는 취소 금액도 돌려주지 않는다.
+        if (state.accountStatus != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        //거래 금액이 잔액보다 큰경우
+        if (state.balance < amount) {
+            throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
+        }
+        if (original.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))) {
+            throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
+        }
+    }
+
+    private TransactionJournal.Entry findOriginal(String transactionId) {
+        TransactionJournal.Entry entry = pending.get(transactionId);
+        if (entry != null) {
+            return entry;
+        }
+
+        long id;
+        try {
+            id = TransactionIdCodec.decode(transactionId);
+        } catch (IllegalArgumentException e) {
+            throw new AccountException(ErrorCode.Transaction_IS_NOT_Find);
+        }
+
+        TransactionView transaction = transactionRepository.findViewByTransactionId(id)
+                .orElseGet(() -> transactionArchive.find(id)
+                        .orElseThrow(() -> new AccountException(ErrorCode.Transaction_IS_NOT_Find)));
+        return TransactionJournal.Entry.builder()
+                .transactionId(transactionId)
+                .ownerId(transaction.getOwnerId())
+                .transactedAt(transaction.getTransactedAt())
+                .build();
+    }
+
+    private TransactionDto append(AccountState state, TransactionType transactionType, Long amount, long newBalance) {
+        TransactionJournal.Entry entry = TransactionJournal.Entry.builder()
+                .transactionId(TransactionIdCodec.encode(transactionIdGenerator.nextId()))
+                .transactionType(transactionType)
+                .transactionResultType(S)
+                .accountId(state.accountId)
+                .ownerId(state.ownerId)
+                .accountNumber(state.accountNumber)
+                .amount(amount)
+                .balanceSnapshot(newBalance)
+                .transactedAt(LocalDateTime.now())
+                .build();
+
+        //journal에 남긴 뒤에만 잔액을 바꾼다. 실패한 기록은 journal이 잘라낸다.
+        //flush가 journal에서 꺼내 pending에서 지우기 전에 들어가 있도록 journal보다 먼저 넣는다.
+        pending.put(entry.getTransactionId(), entry);
+        try {
+            transactionJournal.append(entry);
+        } catch (IOException e) {
+            pending.remove(entry.getTransactionId());
+            if (transactionJournal.isFailed()) {
+                //잘라내지 못한 기록은 재시작 때 반영될 수 있으므로 실패로 응답하고 계속 처리하면 안 된다.
+                failed = true;
+                log.error("Balance engine stopped, journal has an unrecoverable write : {}",
+                        entry.getTransactionId(), e);
+                throw new AccountException(ErrorCode.BALANCE_ENGINE_FAILED);
+            }
+            throw new UncheckedIOException(e);
+        }
+        state.balance = newBalance;
+
+        return toDto(entry);
+    }
+
+    private static TransactionDto toDto(TransactionJournal.Entry entry) {
+        return TransactionDto.builder()
+                .accountNumber(entry.getAccountNumber())
+                .transactionType(entry.getTransactionType())
+                .transactionResultType(entry.getTransactionResultType())
+                .amount(entry.getAmount())
+                .balanceSnapshot(entry.getBalanceSnapshot())
+                .transactionId(entry.getTransactionId())
+                .transactedAt(entry.getTransactedAt())
+                .build();
+    }
+
+    private static class Shard {
+        private final ExecutorService executor = Executors.newSingleThreadExecutor();
+        //executor 쓰레드만 접근
+        private final Map<String, AccountState> states = new HashMap<>();
+    }
+
+    private static class AccountState {
+        private final Long accountId;
+        private final Long ownerId;
+        private final String accountNumber;
+        //해지는 unregister()로만 바뀐다.
+        private AccountStatus accountStatus;
+        private long balance;
+
+        private AccountState(Long accountId, Long ownerId, String accountNumber, AccountStatus accountStatus, long balance) {
+            this.accountId = accountId;
+            this.ownerId = ownerId;
+            this.accountNumber = accountNumber;
+            this.accountStatus = accountStatus;
+            this.balance = balance;
+        }
+    }
+}
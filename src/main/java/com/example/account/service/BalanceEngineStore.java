@@ -0,0 +1,73 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIdCodec;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * BalanceEngine이 모아둔 거래 기록을 한 트랜잭션으로 DB에 반영한다.
+ * 이미 저장된 transactionId는 건너뛰므로 같은 묶음을 다시 반영해도 한 번만 저장된다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.engine.enabled", havingValue = "true")
+public class BalanceEngineStore {
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final AccountSnapshotCache accountSnapshotCache;
+
+    //이미 저장된 거래를 확인하는 in 목록의 최대 크기, insert batch와 같은 크기로 나눈다.
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize = 50;
+
+    @Transactional
+    public void persist(List<TransactionJournal.Entry> entries) {
+        List<Long> transactionIds = entries.stream()
+                .map(entry -> TransactionIdCodec.decode(entry.getTransactionId()))
+                .collect(Collectors.toList());
+        Set<Long> existing = new HashSet<>();
+        for (int from = 0; from < transactionIds.size(); from += batchSize) {
+            existing.addAll(transactionRepository.findExistingTransactionIds(
+                    transactionIds.subList(from, Math.min(from + batchSize, transactionIds.size()))));
+        }
+
+        //계좌별 마지막 거래의 잔액이 최종 잔액
+        Map<Long, Long> balances = new LinkedHashMap<>();
+        List<Transaction> transactions = new ArrayList<>();
+        for (TransactionJournal.Entry entry : entries) {
+            long transactionId = TransactionIdCodec.decode(entry.getTransactionId());
+            balances.put(entry.getAccountId(), entry.getBalanceSnapshot());
+            if (existing.contains(transactionId)) {
+                continue;
+            }
+
+            transactions.add(Transaction.builder()
+                    .transactionType(entry.getTransactionType())
+                    .transactionResultType(entry.getTransactionResultType())
+                    .account(accountRepository.getReferenceById(entry.getAccountId()))
+                    .amount(entry.getAmount())
+                    .balanceSnapshot(entry.getBalanceSnapshot())
+                    .transactionId(transactionId)
+                    .transactedAt(entry.getTransactedAt())
+                    .build());
+        }
+
+        transactionRepository.saveAll(transactions);
+        balances.forEach(accountRepository::updateBalance);
+        balances.keySet().forEach(accountSnapshotCache::evict);
+    }
+}
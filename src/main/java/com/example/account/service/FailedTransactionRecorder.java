@@ -0,0 +1,121 @@
+package com.example.account.service;
+
+import com.example.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 실패 거래 기록 파이프라인
+ * 요청 쓰레드는 고정 크기 ring buffer(ArrayBlockingQueue)에 넣기만 하고, 쓰레드 하나가 batch-size씩 꺼내서 한 번에 저장한다.
+ * 버퍼가 가득 차면 offer-timeout-ms만큼 기다리고, 그래도 자리가 없으면 버리고 dropped 지표를 올린다.
+ */
+@Slf4j
+@Component
+public class FailedTransactionRecorder {
+    private final FailedTransactionStore failedTransactionStore;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final AccountMetrics accountMetrics;
+    private final BlockingQueue<Entry> queue;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final long flushIntervalMillis;
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+
+    public FailedTransactionRecorder(FailedTransactionStore failedTransactionStore,
+                                     TransactionIdGenerator transactionIdGenerator,
+                                     AccountMetrics accountMetrics,
+                                     @Value("${account.failure-audit.capacity:10000}") int capacity,
+                                     @Value("${account.failure-audit.batch-size:500}") int batchSize,
+                                     @Value("${account.failure-audit.offer-timeout-ms:5}") long offerTimeoutMillis,
+                                     @Value("${account.failure-audit.flush-interval-ms:100}") long flushIntervalMillis) {
+        this.failedTransactionStore = failedTransactionStore;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.accountMetrics = accountMetrics;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.flushIntervalMillis = flushIntervalMillis;
+        accountMetrics.monitorFailedTransactionQueue(queue);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.scheduleWithFixedDelay(this::flushQuietly,
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    /**
+     * 실패한 거래를 기록 대기열에 넣는다. 거래번호와 시각은 실패한 시점의 값이다.
+     */
+    public void record(TransactionType transactionType, String accountNumber, Long amount) {
+        Entry entry = new Entry(transactionIdGenerator.nextId(), transactionType, accountNumber, amount, LocalDateTime.now());
+
+        boolean offered;
+        try {
+            offered = queue.offer(entry, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            offered = false;
+        }
+        if (!offered) {
+            log.warn("Drop failed {} transaction of accountNumber : {}", transactionType, accountNumber);
+            accountMetrics.failedTransactionDropped(transactionType);
+        }
+    }
+
+    /**
+     * 쌓인 기록을 batch-size씩 저장한다. 저장에 실패한 묶음은 버린다.
+     */
+    public synchronized void flush() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                failedTransactionStore.persist(batch);
+            } catch (RuntimeException e) {
+                log.error("Failed to persist {} failed transactions", batch.size(), e);
+                batch.forEach(entry -> accountMetrics.failedTransactionDropped(entry.getTransactionType()));
+            }
+            batch.clear();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to flush failed transactions", e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final Long transactionId;
+        private final TransactionType transactionType;
+        private final String accountNumber;
+        private final Long amount;
+        private final LocalDateTime transactedAt;
+    }
+}
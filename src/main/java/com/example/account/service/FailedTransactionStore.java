@@ -0,0 +1,60 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.TransactionResultType.F;
+
+/**
+ * FailedTransactionRecorder가 모은 실패 기록을 한 트랜잭션으로 저장한다.
+ * 계좌는 묶음 전체를 한 번에 조회하고, insert는 JDBC batch로 묶인다.
+ */
+@Component
+@RequiredArgsConstructor
+public class FailedTransactionStore {
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final AccountMetrics accountMetrics;
+
+    @Transactional
+    public void persist(List<FailedTransactionRecorder.Entry> entries) {
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(entries.stream()
+                        .map(FailedTransactionRecorder.Entry::getAccountNumber)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        List<Transaction> transactions = new ArrayList<>(entries.size());
+        for (FailedTransactionRecorder.Entry entry : entries) {
+            Account account = accounts.get(entry.getAccountNumber());
+            //없는 계좌의 실패는 남길 곳이 없다.
+            if (account == null) {
+                continue;
+            }
+
+            transactions.add(Transaction.builder()
+                    .transactionType(entry.getTransactionType())
+                    .transactionResultType(F)
+                    .account(account)
+                    .amount(entry.getAmount())
+                    .balanceSnapshot(account.getBalance())
+                    .transactionId(entry.getTransactionId())
+                    .transactedAt(entry.getTransactedAt())
+                    .build());
+            accountMetrics.failedTransactionWritten(entry.getTransactionType());
+        }
+
+        transactionRepository.saveAll(transactions);
+    }
+}
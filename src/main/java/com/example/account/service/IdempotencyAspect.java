@@ -0,0 +1,111 @@
+package com.example.account.service;
+
+import com.example.account.AOP.AccountLockInterFace;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Idempotency-Key 헤더가 있는 잔액 사용/취소 요청은 처음 한 번만 처리하고,
+ * 같은 키의 재시도에는 저장된 응답을 돌려준다. 키는 경로와 계좌별로 구분하고, 본문이 처음 요청과 다르면 거절한다.
+ * 계좌 락보다 먼저 실행되므로 재시도는 락과 DB를 거치지 않는다.
+ */
+@Aspect
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class IdempotencyAspect {
+    public static final String HEADER = "Idempotency-Key";
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    @Around("@annotation(com.example.account.AOP.accountLock) && args(body)")
+    public Object aroundMethod(ProceedingJoinPoint proceedingJoinPoint, AccountLockInterFace body) throws Throwable {
+        HttpServletRequest request = currentRequest();
+        String idempotencyKey = request == null ? null : request.getHeader(HEADER);
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            return proceedingJoinPoint.proceed();
+        }
+
+        //경로와 계좌를 붙여서 사용과 취소, 다른 계좌의 요청이 같은 키를 써도 섞이지 않게 한다.
+        String key = request.getRequestURI() + ":" + body.getAccountNumber() + ":" + idempotencyKey;
+        String fingerprint = fingerprint(body);
+        Class<?> responseType = ((MethodSignature) proceedingJoinPoint.getSignature()).getReturnType();
+
+        IdempotencyStore.Entry stored = idempotencyStore.find(key);
+        if (stored == null && !idempotencyStore.reserve(key, fingerprint)) {
+            stored = idempotencyStore.find(key);
+        }
+        if (stored != null) {
+            //같은 키를 다른 내용의 요청에 다시 쓰면 이전 결과를 돌려주지 않는다.
+            if (!fingerprint.equals(stored.getFingerprint())) {
+                throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+            }
+            if (stored.isInProgress()) {
+                throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+            }
+            log.debug("Replay response for idempotency key : {}", key);
+            return objectMapper.readValue(stored.getResponse(), responseType);
+        }
+
+        //처리가 처리 중 표시의 TTL보다 길어져도(락 대기, watchdog lease) 다른 요청이 같은 키로 다시 처리하지 않게 연장한다.
+        ScheduledFuture<?> renewal = idempotencyStore.keepInProgress(key, fingerprint);
+        Object response;
+        try {
+            response = proceedingJoinPoint.proceed();
+        } catch (Throwable e) {
+            renewal.cancel(false);
+            idempotencyStore.release(key);
+            throw e;
+        }
+        renewal.cancel(false);
+
+        try {
+            idempotencyStore.complete(key, fingerprint, objectMapper.writeValueAsString(response));
+        } catch (JsonProcessingException e) {
+            //처리는 끝났으므로 키를 지우지 않는다. TTL이 지날 때까지 재시도는 처리 중으로 응답한다.
+            log.error("Failed to store response for idempotency key : {}", key, e);
+            idempotencyStore.hold(key, fingerprint);
+        }
+        return response;
+    }
+
+    //요청 본문의 SHA-256 (base64url)
+    private String fingerprint(Object body) throws JsonProcessingException {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(body));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            return ((ServletRequestAttributes) attributes).getRequest();
+        }
+        return null;
+    }
+}
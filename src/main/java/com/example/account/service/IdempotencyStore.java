@@ -0,0 +1,126 @@
+package com.example.account.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Idempotency-Key -> 요청 지문과 처리 결과(JSON) 저장소
+ * 모든 노드가 같은 Redis를 보므로 재시도가 다른 노드로 가도 같은 결과를 돌려준다.
+ * 키는 ttl-seconds가 지나면 사라지므로 저장소 크기는 그 사이의 요청 수로 제한된다.
+ * 처리 중 표시는 락 watchdog처럼 처리하는 동안 계속 연장하므로, 처리가 in-progress-ttl-seconds보다 길어져도 풀리지 않는다.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+    private static final String KEY_PREFIX = "IDEM:";
+    //지문과 응답 사이의 구분자, 지문(base64url)에는 나오지 않는다.
+    private static final char SEPARATOR = '\n';
+    //아직 처리 중(값이 지문 그대로)일 때만 연장하고, 남은 시간을 줄이지는 않는다. (hold의 ttl-seconds)
+    private static final String RENEW_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] and redis.call('pttl', KEYS[1]) < tonumber(ARGV[2]) then "
+                    + "return redis.call('pexpire', KEYS[1], ARGV[2]) end return 0";
+
+    private final RedissonClient redissonClient;
+    private final long ttlSeconds;
+    //처리 중 표시의 유지 시간, 처리하던 노드가 죽어도 이 시간이 지나면 같은 키로 다시 시도할 수 있다.
+    private final long inProgressTtlSeconds;
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor();
+
+    public IdempotencyStore(RedissonClient redissonClient,
+                            @Value("${account.idempotency.ttl-seconds:3600}") long ttlSeconds,
+                            @Value("${account.idempotency.in-progress-ttl-seconds:30}") long inProgressTtlSeconds) {
+        this.redissonClient = redissonClient;
+        this.ttlSeconds = ttlSeconds;
+        this.inProgressTtlSeconds = inProgressTtlSeconds;
+    }
+
+    //처음 보는 키면 null
+    public Entry find(String key) {
+        String value = bucket(key).get();
+        if (value == null) {
+            return null;
+        }
+        int separator = value.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return new Entry(value, null);
+        }
+        return new Entry(value.substring(0, separator), value.substring(separator + 1));
+    }
+
+    //처음 보는 키면 처리 중으로 표시하고 true, 응답을 저장할 때 ttl-seconds로 늘어난다.
+    public boolean reserve(String key, String fingerprint) {
+        return bucket(key).trySet(fingerprint, inProgressTtlSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 처리하는 동안 in-progress-ttl-seconds의 1/3마다 처리 중 표시를 연장한다.
+     * 처리가 끝나면 complete/hold/release 전에 돌려받은 ScheduledFuture를 cancel 해야 한다.
+     */
+    public ScheduledFuture<?> keepInProgress(String key, String fingerprint) {
+        long ttlMillis = TimeUnit.SECONDS.toMillis(inProgressTtlSeconds);
+        long periodMillis = Math.max(1L, ttlMillis / 3);
+        return renewer.scheduleAtFixedRate(() -> renew(key, fingerprint, ttlMillis),
+                periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void renew(String key, String fingerprint, long ttlMillis) {
+        try {
+            redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, RENEW_SCRIPT,
+                    RScript.ReturnType.INTEGER, Collections.<Object>singletonList(KEY_PREFIX + key),
+                    fingerprint, String.valueOf(ttlMillis));
+        } catch (RuntimeException e) {
+            //다음 주기에 다시 시도한다. 계속 실패하면 처리 중 표시는 in-progress-ttl-seconds 뒤에 풀린다.
+            log.warn("Failed to renew idempotency key : {}", key, e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        renewer.shutdownNow();
+    }
+
+    public void complete(String key, String fingerprint, String response) {
+        bucket(key).set(fingerprint + SEPARATOR + response, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    //처리는 끝났지만 응답을 저장하지 못한 키, 다시 처리되지 않도록 ttl-seconds 동안 처리 중으로 남긴다.
+    public void hold(String key, String fingerprint) {
+        bucket(key).set(fingerprint, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    //처리에 실패하면 지워서 같은 키로 다시 시도할 수 있게 한다.
+    public void release(String key) {
+        bucket(key).delete();
+    }
+
+    private RBucket<String> bucket(String key) {
+        return redissonClient.getBucket(KEY_PREFIX + key, StringCodec.INSTANCE);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        //처음 요청 본문의 SHA-256
+        private final String fingerprint;
+        //처리 중이면 null
+        private final String response;
+
+        public boolean isInProgress() {
+            return response == null;
+        }
+    }
+}
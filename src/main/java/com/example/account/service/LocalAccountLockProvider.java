@@ -0,0 +1,124 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 단일 노드용 계좌 락
+ * 계좌번호를 해시해서 고정된 개수의 mailbox 중 하나에 대응시킨다.
+ * mailbox는 CAS로 주인(쓰레드)을 정하고, 기다리는 쓰레드는 lock-free 큐에 도착 순서대로 줄을 선다.
+ * 한 번에 한 쓰레드만 같은 계좌를 처리하므로 Redis 왕복 없이 계좌별 단일 writer가 보장된다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "local")
+public class LocalAccountLockProvider implements AccountLockProvider {
+    private final Mailbox[] mailboxes;
+    private final int mask;
+
+    public LocalAccountLockProvider(@Value("${account.lock.local.stripes:1024}") int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.mailboxes = new Mailbox[size];
+        for (int i = 0; i < size; i++) {
+            mailboxes[i] = new Mailbox();
+        }
+        this.mask = size - 1;
+    }
+
+    //프로세스 안의 락이라 만료가 필요 없으므로 leaseMillis는 쓰지 않는다.
+    @Override
+    public void lock(String accountNumber, long waitMillis, long leaseMillis) {
+        if (!mailboxOf(accountNumber).tryLock(TimeUnit.MILLISECONDS.toNanos(waitMillis))) {
+            log.error("=========== Lock Failed ============");
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        mailboxOf(accountNumber).unlock();
+    }
+
+    @Override
+    public String keyPrefix() {
+        return "LOCAL";
+    }
+
+    //계좌 순서가 아니라 mailbox 순서로 잡아야 서로 다른 이체가 같은 mailbox를 반대로 잡지 않는다.
+    @Override
+    public Comparator<String> lockOrder() {
+        return Comparator.comparingInt(this::indexOf).thenComparing(Comparator.naturalOrder());
+    }
+
+    private Mailbox mailboxOf(String accountNumber) {
+        return mailboxes[indexOf(accountNumber)];
+    }
+
+    private int indexOf(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static class Mailbox {
+        private final AtomicReference<Thread> owner = new AtomicReference<>();
+        private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+        //주인 쓰레드만 읽고 쓴다. 두 계좌가 같은 mailbox에 걸려도 한 쓰레드가 둘 다 잡을 수 있게 한다.
+        private int holds;
+
+        private boolean tryLock(long waitNanos) {
+            Thread current = Thread.currentThread();
+            if (owner.get() == current) {
+                holds++;
+                return true;
+            }
+            //아무도 기다리지 않으면 CAS 한 번으로 끝난다.
+            if (waiters.isEmpty() && owner.compareAndSet(null, current)) {
+                holds = 1;
+                return true;
+            }
+
+            long deadline = System.nanoTime() + waitNanos;
+            boolean interrupted = false;
+            waiters.add(current);
+            try {
+                while (waiters.peek() != current || !owner.compareAndSet(null, current)) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || interrupted) {
+                        waiters.remove(current);
+                        //맨 앞에서 포기했다면 다음 쓰레드를 깨워야 차례가 넘어간다.
+                        LockSupport.unpark(waiters.peek());
+                        return false;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                    interrupted = Thread.interrupted();
+                }
+                waiters.remove();
+                holds = 1;
+                return true;
+            } finally {
+                if (interrupted) {
+                    current.interrupt();
+                }
+            }
+        }
+
+        private void unlock() {
+            if (owner.get() != Thread.currentThread() || --holds > 0) {
+                return;
+            }
+            owner.set(null);
+            LockSupport.unpark(waiters.peek());
+        }
+    }
+}
@@ -2,28 +2,85 @@ package com.example.account.service;
 
 
 import com.example.account.AOP.AccountLockInterFace;
+import com.example.account.AOP.accountLock;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Aspect
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class LockAopAspect {
     private final LockService lockService;
-    @Around("@annotation(com.example.account.AOP.accountLock) && args(request)")
-    public Object aroundMethod(ProceedingJoinPoint proceedingJoinPoint, AccountLockInterFace request) throws Throwable {
+    private final AdmissionService admissionService;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+
+    //true면 분산 락을 잡지 않고, version 충돌이 나면 maxAttempts까지 다시 처리한다.
+    @Value("${account.concurrency.optimistic:false}")
+    private boolean optimistic;
+
+    @Value("${account.concurrency.max-attempts:3}")
+    private int maxAttempts = 3;
 
-        lockService.Lock(request.getAccountNumber());
+    @Around("@annotation(lock) && args(request)")
+    public Object aroundMethod(ProceedingJoinPoint proceedingJoinPoint, accountLock lock,
+                               AccountLockInterFace request) throws Throwable {
+
+        //같은 계좌의 요청은 대기열에서 차례를 기다린 뒤에 락을 잡는다.
+        admissionService.enter(request.getAccountNumber());
         try {
-            return proceedingJoinPoint.proceed();
+            if (optimistic) {
+                return proceedWithRetry(proceedingJoinPoint, request);
+            }
+
+            List<String> accountNumbers = request.lockAccountNumbers();
+            if (accountNumbers.size() > 1) {
+                //이체처럼 여러 계좌를 바꾸는 요청은 정해진 순서로 모두 잡는다.
+                long lockedAt = lockService.lockAll(accountNumbers, lock.tryLockTime(), lock.leaseTime());
+                try {
+                    return proceedingJoinPoint.proceed();
+                } finally {
+                    lockService.unlockAll(accountNumbers, lockedAt);
+                }
+            }
+
+            //대기 시간과 lease는 API마다 @accountLock에 정한 값
+            long lockedAt = lockService.Lock(request.getAccountNumber(), lock.tryLockTime(), lock.leaseTime());
+            try {
+                return proceedingJoinPoint.proceed();
+            }finally {
+                //lock 해체, 이번 요청이 잡고 있던 시간을 기록한다.
+                lockService.unLock(request.getAccountNumber(), lockedAt);
+            }
         }finally {
-            //lock 해체
-            lockService.unLock(request.getAccountNumber());
+            admissionService.leave(request.getAccountNumber());
+        }
+    }
+
+    private Object proceedWithRetry(ProceedingJoinPoint proceedingJoinPoint, AccountLockInterFace request) throws Throwable {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return proceedingJoinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    //락을 잡지 못한 것과 같은 경합이므로 같은 응답을 주고, 컨트롤러를 벗어난 실패라서 여기서 F로 기록한다.
+                    log.error("Concurrent update retries exhausted for accountNumber : {}", request.getAccountNumber());
+                    failedTransactionRecorder.record(request.failedTransactionType(),
+                            request.getAccountNumber(), request.getAmount());
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+                log.debug("Retry concurrent update for accountNumber : {} ({})", request.getAccountNumber(), attempt);
+            }
         }
     }
 }
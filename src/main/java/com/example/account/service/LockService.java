@@ -1,47 +1,97 @@
 package com.example.account.service;
 
 import com.example.account.exception.AccountException;
-import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.TreeSet;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 
 public class LockService {
-    private final RedissonClient redissonClient;
+    //lease를 정하지 않고 처리가 끝날 때까지 유지
+    public static final long WATCHDOG_LEASE = -1L;
 
-    public String Lock(String accountNumber){
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
-        log.debug("RTrying lock for accountNumber : {}", accountNumber);
+    private final AccountLockProvider accountLockProvider;
+    private final AccountMetrics accountMetrics;
 
-        try{
-            boolean isLock = lock.tryLock(1,15, TimeUnit.SECONDS);
-            if(!isLock){
-                log.error("=========== Lock Failed ============");
-                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
-            }
-        }catch (AccountException e){
-           throw e;
-        }catch (Exception e){
-            log.error("Redis lock failed", e);
+    //@accountLock이 없는 곳(일괄 사용)에서 기다리는 시간
+    @Value("${account.lock.wait-ms:5000}")
+    private long defaultWaitMillis = 5000L;
+
+    public long Lock(String accountNumber){
+        return Lock(accountNumber, defaultWaitMillis, WATCHDOG_LEASE);
+    }
+
+    /**
+     * 락을 잡은 시각(nanoTime)을 돌려준다. 풀 때 unLock에 그대로 넘기면 이번에 잡은 동안의 유지 시간이 기록된다.
+     */
+    public long Lock(String accountNumber, long waitMillis, long leaseMillis){
+        log.debug("RTrying lock for accountNumber : {}", accountNumber);
+        long start = System.nanoTime();
+        try {
+            accountLockProvider.lock(accountNumber, waitMillis, leaseMillis);
+        } catch (AccountException e) {
+            accountMetrics.recordLockWait(System.nanoTime() - start, false);
+            accountMetrics.lockFailed(accountLockProvider.keyPrefix());
+            throw e;
         }
 
-        return "get lock success";
+        long locked = System.nanoTime();
+        accountMetrics.recordLockWait(locked - start, true);
+
+        return locked;
     }
 
-    public void unLock(String accountNumber){
+    public void unLock(String accountNumber, long lockedAt){
         log.debug("Unlock for accountNumnber : {}", accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+        accountMetrics.recordLockHold(System.nanoTime() - lockedAt);
+        accountLockProvider.unlock(accountNumber);
+    }
+
+    /**
+     * 여러 계좌의 락을 정해진 순서(AccountLockProvider.lockOrder)로 잡는다. 모든 요청이 같은 순서로 잡으므로
+     * A->B, B->A 이체가 동시에 와도 서로를 기다리며 멈추지 않는다.
+     * waitMillis는 전체 대기 시간이고, 하나라도 실패하면 이미 잡은 락을 풀고 예외를 던진다.
+     * 모든 락을 잡은 시각(nanoTime)을 돌려주고, 풀 때 unlockAll에 넘긴다.
+     */
+    public long lockAll(Collection<String> accountNumbers, long waitMillis, long leaseMillis){
+        long deadline = System.currentTimeMillis() + waitMillis;
+        Deque<String> locked = new ArrayDeque<>();
+        long lockedAt = 0L;
+        try {
+            for (String accountNumber : ordered(accountNumbers)) {
+                lockedAt = Lock(accountNumber, Math.max(0L, deadline - System.currentTimeMillis()), leaseMillis);
+                locked.push(accountNumber);
+            }
+        } catch (RuntimeException e) {
+            //처리를 시작하지 않았으므로 유지 시간은 기록하지 않는다.
+            while (!locked.isEmpty()) {
+                accountLockProvider.unlock(locked.pop());
+            }
+            throw e;
+        }
+        return lockedAt;
+    }
+
+    public void unlockAll(Collection<String> accountNumbers, long lockedAt){
+        accountMetrics.recordLockHold(System.nanoTime() - lockedAt);
+        for (String accountNumber : ordered(accountNumbers).descendingSet()) {
+            log.debug("Unlock for accountNumnber : {}", accountNumber);
+            accountLockProvider.unlock(accountNumber);
+        }
     }
 
-    private String getLockKey(String accountNumber) {
-        return "ACLK:" + accountNumber;
+    private TreeSet<String> ordered(Collection<String> accountNumbers) {
+        TreeSet<String> ordered = new TreeSet<>(accountLockProvider.lockOrder());
+        ordered.addAll(accountNumbers);
+        return ordered;
     }
 }
@@ -0,0 +1,64 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "redis", matchIfMissing = true)
+public class RedisAccountLockProvider implements AccountLockProvider {
+    private static final String KEY_PREFIX = "ACLK";
+
+    private final RedissonClient redissonClient;
+
+    @Override
+    public void lock(String accountNumber, long waitMillis, long leaseMillis) {
+        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
+
+        try{
+            //기다리는 동안은 polling 하지 않고 unlock 알림(pub/sub)을 받아서 다시 시도한다.
+            //leaseMillis가 -1이면 lockWatchdogTimeout 단위로 만료를 연장하다가 unlock이나 노드 종료 시 멈춘다.
+            boolean isLock = lock.tryLock(waitMillis, leaseMillis, TimeUnit.MILLISECONDS);
+            if(!isLock){
+                log.error("=========== Lock Failed ============");
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }catch (RedisException e){
+            //락 없이 진행하지 않는다.
+            log.error("Redis lock failed", e);
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        try {
+            redissonClient.getLock(getLockKey(accountNumber)).unlock();
+        } catch (IllegalMonitorStateException e) {
+            //정해둔 lease가 처리보다 먼저 끝난 경우, 락은 이미 풀려 있다.
+            log.warn("Lock lease expired before unlock for accountNumber : {}", accountNumber);
+        }
+    }
+
+    @Override
+    public String keyPrefix() {
+        return KEY_PREFIX;
+    }
+
+    private String getLockKey(String accountNumber) {
+        return KEY_PREFIX + ":" + accountNumber;
+    }
+}
@@ -0,0 +1,438 @@
+package com.example.account.service;
+
+import com.example.account.Dto.TransactionView;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 취소 기간(1년)이 지난 거래의 보관소, 월별로 파일 하나씩 한 번 쓰고 다시 고치지 않는다.
+ * 데이터 파일은 거래번호 순으로 blockSize건씩 따로 압축한 gzip member를 이어 붙인 것이고,
+ * index 파일에는 block마다 (첫 거래번호, 마지막 거래번호, 파일 위치) 한 줄만 남긴다.
+ * 조회는 index를 메모리에서 이분 탐색한 뒤 block 하나만 읽어서 푼다.
+ * 디렉터리는 여러 노드가 함께 쓰므로, 조회가 실패하면 다른 노드가 새로 옮긴 달의 index를 다시 읽는다. (refresh-interval-ms마다 한 번)
+ */
+@Slf4j
+@Component
+public class TransactionArchive {
+    private static final String PREFIX = "transactions-";
+    private static final String DATA_SUFFIX = ".tsv.gz";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 1000L;
+
+    private final Path directory;
+    private final int blockSize;
+    private final long refreshIntervalMillis;
+    private final ConcurrentSkipListMap<YearMonth, Segment> segments = new ConcurrentSkipListMap<>();
+
+    //다음 refresh를 허용하는 시각, 없는 거래번호 조회마다 디렉터리를 읽지 않도록
+    private final AtomicLong nextRefreshAt = new AtomicLong();
+
+    public TransactionArchive(String path, int blockSize) throws IOException {
+        this(path, blockSize, DEFAULT_REFRESH_INTERVAL_MILLIS);
+    }
+
+    @Autowired
+    public TransactionArchive(@Value("${account.archive.path:./data/archive}") String path,
+                              @Value("${account.archive.block-size:1024}") int blockSize,
+                              @Value("${account.archive.refresh-interval-ms:1000}") long refreshIntervalMillis) throws IOException {
+        this.directory = Paths.get(path);
+        this.blockSize = blockSize;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        refresh();
+        log.info("Loaded {} transaction archive months from {}", segments.size(), directory);
+    }
+
+    public boolean contains(YearMonth month) {
+        return segments.containsKey(month);
+    }
+
+    /**
+     * 그 달 archive에 들어간 거래번호의 {최소, 최대}, 없으면 null
+     */
+    public long[] transactionIdRange(YearMonth month) {
+        Segment segment = segments.get(month);
+        return segment == null
+                ? null
+                : new long[]{segment.firstIds[0], segment.lastIds[segment.lastIds.length - 1]};
+    }
+
+    /**
+     * 그 달 archive의 block마다 {첫 거래번호, 마지막 거래번호}, 없으면 빈 목록
+     */
+    public List<long[]> transactionIdBlocks(YearMonth month) {
+        Segment segment = segments.get(month);
+        if (segment == null) {
+            return new ArrayList<>();
+        }
+        List<long[]> blocks = new ArrayList<>(segment.firstIds.length);
+        for (int i = 0; i < segment.firstIds.length; i++) {
+            blocks.add(new long[]{segment.firstIds[i], segment.lastIds[i]});
+        }
+        return blocks;
+    }
+
+    public Optional<TransactionView> find(long transactionId) {
+        Optional<TransactionView> found = findLoaded(transactionId);
+        if (found.isPresent() || !refreshDue()) {
+            return found;
+        }
+        try {
+            //다른 노드가 그 사이에 옮긴 달일 수 있다.
+            if (refresh() == 0) {
+                return found;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return findLoaded(transactionId);
+    }
+
+    private Optional<TransactionView> findLoaded(long transactionId) {
+        for (Segment segment : segments.values()) {
+            //거래번호는 시간순이라 범위가 겹치는 달은 거의 없다.
+            if (segment.covers(transactionId)) {
+                Optional<TransactionView> found;
+                try {
+                    found = segment.find(transactionId);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (found.isPresent()) {
+                    return found;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 거래번호 순으로 append 한 뒤 commit() 해야 조회된다. commit 전에 close 하면 버린다.
+     */
+    public ArchiveWriter open(YearMonth month) throws IOException {
+        Files.createDirectories(directory);
+        return new ArchiveWriter(month);
+    }
+
+    /**
+     * 아직 읽지 않은 달의 index를 읽는다. 파일은 한 번 쓰면 고치지 않으므로 새 달만 보면 된다.
+     * 쓰는 중인 임시 파일은 다른 노드의 것일 수 있으므로 건드리지 않는다. (cleanUp)
+     * @return 새로 읽은 달의 수
+     */
+    public int refresh() throws IOException {
+        nextRefreshAt.set(System.currentTimeMillis() + refreshIntervalMillis);
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        int loaded = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.collect(Collectors.toList())) {
+                String name = path.getFileName().toString();
+                if (!name.startsWith(PREFIX) || !name.endsWith(INDEX_SUFFIX)) {
+                    continue;
+                }
+                YearMonth month = YearMonth.parse(
+                        name.substring(PREFIX.length(), name.length() - INDEX_SUFFIX.length()));
+                if (!segments.containsKey(month)) {
+                    segments.putIfAbsent(month, Segment.read(path, dataPath(month)));
+                    loaded++;
+                }
+            }
+        }
+        if (loaded > 0) {
+            log.info("Loaded {} new transaction archive months from {}", loaded, directory);
+        }
+        return loaded;
+    }
+
+    /**
+     * 쓰다가 멈춘 임시 파일을 지운다. 원본 행은 아직 DB에 있다.
+     * 다른 노드가 쓰고 있을 수 있으므로 archive 락을 잡은 노드가 olderThan보다 오래된 파일만 지운다.
+     */
+    public void cleanUp(Duration olderThan) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Instant threshold = Instant.now().minus(olderThan);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.collect(Collectors.toList())) {
+                if (path.getFileName().toString().endsWith(TMP_SUFFIX)
+                        && Files.getLastModifiedTime(path).toInstant().isBefore(threshold)) {
+                    log.warn("Delete abandoned archive file {}", path);
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private boolean refreshDue() {
+        long now = System.currentTimeMillis();
+        long next = nextRefreshAt.get();
+        //동시에 실패한 조회 중 하나만 디렉터리를 읽는다.
+        return now >= next && nextRefreshAt.compareAndSet(next, now + refreshIntervalMillis);
+    }
+
+    private Path dataPath(YearMonth month) {
+        return directory.resolve(PREFIX + month + DATA_SUFFIX);
+    }
+
+    private Path indexPath(YearMonth month) {
+        return directory.resolve(PREFIX + month + INDEX_SUFFIX);
+    }
+
+    private static Path tmp(Path path) {
+        return path.resolveSibling(path.getFileName() + TMP_SUFFIX);
+    }
+
+    public class ArchiveWriter implements Closeable {
+        private final YearMonth month;
+        private final FileOutputStream file;
+        private final CountingOutputStream out;
+        private final List<long[]> blocks = new ArrayList<>();
+
+        private GZIPOutputStream block;
+        private int blockCount;
+        private long firstId;
+        private long lastId = Long.MIN_VALUE;
+        private long blockOffset;
+        private boolean committed;
+
+        private ArchiveWriter(YearMonth month) throws IOException {
+            this.month = month;
+            this.file = new FileOutputStream(tmp(dataPath(month)).toFile());
+            this.out = new CountingOutputStream(new BufferedOutputStream(file));
+        }
+
+        public void append(TransactionView transaction) throws IOException {
+            long id = transaction.getTransactionId();
+            if (id <= lastId) {
+                throw new IllegalStateException("archive must be written in transactionId order");
+            }
+            if (block == null) {
+                block = new GZIPOutputStream(out);
+                blockOffset = out.count;
+                firstId = id;
+            }
+            block.write((toLine(transaction) + "\n").getBytes(StandardCharsets.UTF_8));
+            lastId = id;
+            if (++blockCount == blockSize) {
+                closeBlock();
+            }
+        }
+
+        /**
+         * 데이터와 index를 fsync 한 뒤 이름을 바꾼다. 쓴 거래가 없으면 파일을 남기지 않는다.
+         */
+        public boolean commit() throws IOException {
+            closeBlock();
+            out.flush();
+            file.getFD().sync();
+            file.close();
+            if (blocks.isEmpty()) {
+                Files.delete(tmp(dataPath(month)));
+                committed = true;
+                return false;
+            }
+
+            List<String> lines = blocks.stream()
+                    .map(b -> b[0] + "\t" + b[1] + "\t" + b[2])
+                    .collect(Collectors.toList());
+            Path index = tmp(indexPath(month));
+            try (FileChannel channel = FileChannel.open(index,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+
+            //index가 있는 달만 load 하므로 데이터 파일을 먼저 옮긴다.
+            Files.move(tmp(dataPath(month)), dataPath(month), StandardCopyOption.ATOMIC_MOVE);
+            Files.move(index, indexPath(month), StandardCopyOption.ATOMIC_MOVE);
+            segments.put(month, Segment.read(indexPath(month), dataPath(month)));
+            committed = true;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            file.close();
+            Files.deleteIfExists(tmp(dataPath(month)));
+            Files.deleteIfExists(tmp(indexPath(month)));
+        }
+
+        private void closeBlock() throws IOException {
+            if (block == null) {
+                return;
+            }
+            //gzip trailer만 쓰고 파일은 닫지 않는다.
+            block.close();
+            blocks.add(new long[]{firstId, lastId, blockOffset});
+            block = null;
+            blockCount = 0;
+        }
+    }
+
+    private static class Segment {
+        private final Path data;
+        private final long[] firstIds;
+        private final long[] lastIds;
+        private final long[] offsets;
+        private final long length;
+
+        private Segment(Path data, long[] firstIds, long[] lastIds, long[] offsets) throws IOException {
+            this.data = data;
+            this.firstIds = firstIds;
+            this.lastIds = lastIds;
+            this.offsets = offsets;
+            this.length = Files.size(data);
+        }
+
+        private static Segment read(Path index, Path data) throws IOException {
+            List<String> lines = Files.readAllLines(index, StandardCharsets.UTF_8);
+            long[] firstIds = new long[lines.size()];
+            long[] lastIds = new long[lines.size()];
+            long[] offsets = new long[lines.size()];
+            for (int i = 0; i < lines.size(); i++) {
+                String[] fields = lines.get(i).split("\t");
+                firstIds[i] = Long.parseLong(fields[0]);
+                lastIds[i] = Long.parseLong(fields[1]);
+                offsets[i] = Long.parseLong(fields[2]);
+            }
+            return new Segment(data, firstIds, lastIds, offsets);
+        }
+
+        private boolean covers(long transactionId) {
+            return transactionId >= firstIds[0] && transactionId <= lastIds[lastIds.length - 1];
+        }
+
+        private Optional<TransactionView> find(long transactionId) throws IOException {
+            int found = Arrays.binarySearch(firstIds, transactionId);
+            int i = found >= 0 ? found : -found - 2;
+            if (i < 0 || transactionId > lastIds[i]) {
+                return Optional.empty();
+            }
+
+            long end = i + 1 < offsets.length ? offsets[i + 1] : length;
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - offsets[i]));
+            try (FileChannel channel = FileChannel.open(data, StandardOpenOption.READ)) {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, offsets[i] + buffer.position()) < 0) {
+                        throw new EOFException("archive block is truncated : " + data);
+                    }
+                }
+            }
+
+            String prefix = transactionId + "\t";
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new ByteArrayInputStream(buffer.array())), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(prefix)) {
+                        return Optional.of(fromLine(line));
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static String toLine(TransactionView transaction) {
+        return String.join("\t",
+                String.valueOf(transaction.getTransactionId()),
+                transaction.getAccountNumber(),
+                String.valueOf(transaction.getOwnerId()),
+                transaction.getTransactionType().name(),
+                transaction.getTransactionResultType().name(),
+                String.valueOf(transaction.getAmount()),
+                String.valueOf(transaction.getBalanceSnapshot()),
+                transaction.getTransactedAt().toString());
+    }
+
+    private static TransactionView fromLine(String line) {
+        String[] fields = line.split("\t");
+        return new TransactionView(
+                fields[1],
+                Long.valueOf(fields[2]),
+                TransactionType.valueOf(fields[3]),
+                TransactionResultType.valueOf(fields[4]),
+                Long.valueOf(fields[5]),
+                Long.valueOf(fields[6]),
+                Long.valueOf(fields[0]),
+                LocalDateTime.parse(fields[7]));
+    }
+
+    //gzip member를 닫아도 파일은 닫히지 않게 하고, 쓴 바이트 수로 block 위치를 기록한다.
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
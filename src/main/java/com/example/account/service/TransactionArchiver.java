@@ -0,0 +1,122 @@
+package com.example.account.service;
+
+import com.example.account.repository.TransactionArchiveRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 취소할 수 없게 된(1년이 지난) 달의 거래를 transaction 테이블에서 archive 파일로 옮긴다. (account.archive.enabled=true)
+ * 달이 통째로 1년 이전인 경우만 옮기고, archive에 commit 된 뒤에만 행을 block 범위씩 나눠서 지운다.
+ * 여러 노드가 동시에 옮기지 않도록 Redis 락을 잡은 노드만 실행한다.
+ * 지운 거래는 archive 파일로만 조회되므로, account.archive.path는 모든 노드가 함께 쓰는 공유 디렉터리(NFS 등)여야 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.archive.enabled", havingValue = "true")
+public class TransactionArchiver {
+    private static final String LOCK_KEY = "ACARCHIVE";
+    //이보다 오래 고쳐지지 않은 임시 파일은 쓰던 노드가 멈춘 것으로 본다.
+    private static final Duration ABANDONED_AFTER = Duration.ofHours(1);
+
+    private final TransactionArchiveRepository transactionArchiveRepository;
+    private final TransactionArchive transactionArchive;
+    private final RedissonClient redissonClient;
+
+    @Scheduled(cron = "${account.archive.cron:0 0 3 * * *}")
+    public void archiveExpired() {
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        try {
+            //다른 노드가 옮기는 중이면 기다리지 않고 넘어간다. 락은 watchdog으로 끝날 때까지 유지한다.
+            if (!lock.tryLock(0L, -1L, TimeUnit.MILLISECONDS)) {
+                log.info("Transaction archive is running on another node");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RedisException e) {
+            log.error("Failed to get transaction archive lock", e);
+            return;
+        }
+
+        try {
+            archiveBefore(LocalDateTime.now().minusYears(1));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * cutoff가 속한 달 이전의 달을 오래된 순으로 옮긴다. archive 락을 잡은 상태에서 부른다.
+     */
+    void archiveBefore(LocalDateTime cutoff) {
+        try {
+            //지난번에 다른 노드가 옮긴 달은 다시 쓰지 않는다.
+            transactionArchive.refresh();
+            transactionArchive.cleanUp(ABANDONED_AFTER);
+        } catch (IOException e) {
+            log.error("Failed to read transaction archive directory", e);
+            return;
+        }
+
+        Optional<LocalDateTime> oldest = transactionArchiveRepository.findOldestTransactedAt();
+        if (!oldest.isPresent()) {
+            return;
+        }
+
+        YearMonth last = YearMonth.from(cutoff);
+        for (YearMonth month = YearMonth.from(oldest.get()); month.isBefore(last); month = month.plusMonths(1)) {
+            try {
+                archive(month);
+            } catch (IOException | UncheckedIOException e) {
+                //다음 실행에서 같은 달부터 다시 시도
+                log.error("Failed to archive transactions of {}", month, e);
+                return;
+            }
+        }
+    }
+
+    private void archive(YearMonth month) throws IOException {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        //지난 실행이 commit 후 삭제 전에 멈췄다면 이미 archive에 있다.
+        if (!transactionArchive.contains(month)) {
+            try (TransactionArchive.ArchiveWriter writer = transactionArchive.open(month)) {
+                transactionArchiveRepository.stream(from, to, transaction -> {
+                    try {
+                        writer.append(transaction);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!writer.commit()) {
+                    return;
+                }
+            }
+        }
+
+        //archive 이후에 그 달로 기록된 거래는 거래번호가 더 크므로 지워지지 않는다.
+        //한 달을 한 문장으로 지우면 락과 undo가 커지므로 block의 거래번호 범위씩 따로 지운다.
+        int deleted = 0;
+        for (long[] block : transactionArchive.transactionIdBlocks(month)) {
+            deleted += transactionArchiveRepository.delete(from, to, block[0], block[1]);
+        }
+        log.info("Archived {} transactions of {}", deleted, month);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.account.service;
+
+import com.example.account.Dto.UseBalance;
+import com.example.account.Dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * 여러 건의 잔액 사용을 계좌별로 묶어서 처리한다.
+ * 계좌마다 대기열 입장과 락은 한 번만 하고, 묶음은 한 트랜잭션에서 저장한다.
+ * 계좌 락은 한 번에 하나만 잡으므로 다른 요청과 교착 상태가 생기지 않는다.
+ * 한 계좌 묶음이 실패해도 다른 계좌 묶음은 계속 처리하고, 실패한 묶음은 단건 처리처럼 F로 기록한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionBatchService {
+    private final TransactionService transactionService;
+    private final LockService lockService;
+    private final AdmissionService admissionService;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+
+    public List<UseBalanceBatch.Result> useBalance(List<UseBalance.Request> requests) {
+        //계좌번호 -> 요청 순번, 같은 계좌의 요청은 들어온 순서대로 처리
+        Map<String, List<Integer>> indexesByAccount = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            indexesByAccount.computeIfAbsent(requests.get(i).getAccountNumber(), key -> new ArrayList<>()).add(i);
+        }
+
+        UseBalanceBatch.Result[] results = new UseBalanceBatch.Result[requests.size()];
+        indexesByAccount.forEach((accountNumber, indexes) -> {
+            List<UseBalance.Request> group = new ArrayList<>(indexes.size());
+            indexes.forEach(index -> group.add(requests.get(index)));
+
+            List<UseBalanceBatch.Result> groupResults = useBalanceWithLock(accountNumber, group);
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = groupResults.get(i);
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    private List<UseBalanceBatch.Result> useBalanceWithLock(String accountNumber, List<UseBalance.Request> group) {
+        try {
+            admissionService.enter(accountNumber);
+            try {
+                long lockedAt = lockService.Lock(accountNumber);
+                try {
+                    return transactionService.useBalanceBatch(accountNumber, group);
+                } finally {
+                    lockService.unLock(accountNumber, lockedAt);
+                }
+            } finally {
+                admissionService.leave(accountNumber);
+            }
+        } catch (AccountException e) {
+            //락을 잡지 못했거나 계좌가 없으면 해당 계좌의 요청은 모두 실패
+            log.error("Failed to use balance in batch : {} {}", accountNumber, e.getErrorCode());
+            return failGroup(group, e.getErrorCode());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            //낙관적 락 모드에서 다른 거래가 먼저 반영된 경우, 묶음 트랜잭션은 롤백됐다.
+            log.error("Failed to use balance in batch : {} concurrent update", accountNumber);
+            return failGroup(group, ErrorCode.ACCOUNT_CONCURRENT_UPDATE);
+        } catch (DataAccessException e) {
+            log.error("Failed to use balance in batch : {}", accountNumber, e);
+            return failGroup(group, ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private List<UseBalanceBatch.Result> failGroup(List<UseBalance.Request> group, ErrorCode errorCode) {
+        group.forEach(request ->
+                failedTransactionRecorder.record(USE, request.getAccountNumber(), request.getAmount()));
+        return UseBalanceBatch.Result.failAll(group, errorCode);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.account.service;
+
+import com.example.account.Dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.TransactionExportRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.ExportFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 정산용 거래 내보내기
+ * 한 행씩 읽어서 바로 응답에 쓰기 때문에 결과 크기와 관계없이 메모리 사용량이 일정하다.
+ * transaction 테이블만 읽으므로 TransactionArchiver가 archive로 옮긴(1년이 지난 달의) 거래는 포함되지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+    private static final String CSV_HEADER =
+            "transactionId,accountNumber,transactionType,transactionResult,amount,balanceSnapshot,transactedAt\n";
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final TransactionExportRepository transactionExportRepository;
+    private final AccountOwnershipCache accountOwnershipCache;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 요청 검증은 바로 하고, 조회와 쓰기는 응답을 보낼 때 한다.
+     * accountNumber가 없으면 전체 계좌
+     */
+    public StreamingResponseBody export(String accountNumber, LocalDateTime from, LocalDateTime to,
+                                       ExportFormat format) {
+        if (!from.isBefore(to)) {
+            throw new AccountException(ErrorCode.INVALID_EXPORT_RANGE);
+        }
+        Long accountId = accountNumber == null
+                ? null
+                : accountOwnershipCache.get(accountNumber).getAccountId();
+
+        return out -> write(accountId, from, to, format, out);
+    }
+
+    void write(Long accountId, LocalDateTime from, LocalDateTime to, ExportFormat format,
+               OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+
+        long[] rows = {0};
+        try {
+            transactionExportRepository.export(accountId, from, to, transaction -> {
+                try {
+                    writer.write(format == ExportFormat.CSV ? toCsv(transaction) : toJson(transaction));
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            //클라이언트가 연결을 끊은 경우
+            throw e.getCause();
+        }
+        //버퍼가 찰 때마다 chunk로 나가고, 남은 부분만 마지막에 보낸다.
+        writer.flush();
+        log.info("Exported {} transactions, accountId={}, from={}, to={}", rows[0], accountId, from, to);
+    }
+
+    private String toJson(TransactionDto transaction) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(transaction) + "\n";
+    }
+
+    private static String toCsv(TransactionDto transaction) {
+        return csv(transaction.getTransactionId()) + ","
+                + csv(transaction.getAccountNumber()) + ","
+                + transaction.getTransactionType() + ","
+                + transaction.getTransactionResultType() + ","
+                + transaction.getAmount() + ","
+                + transaction.getBalanceSnapshot() + ","
+                + DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(transaction.getTransactedAt()) + "\n";
+    }
+
+    //RFC 4180, 쉼표/따옴표/줄바꿈이 있는 값만 따옴표로 감싸고 안의 따옴표는 두 번 쓴다.
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.account.service;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * BalanceEngine의 write-ahead log
+ * 잔액을 메모리에서 바꾸기 전에 거래 기록을 파일에 먼저 남긴다.
+ * 기록은 segment 파일 단위로 쌓이고, DB에 반영된 segment는 checkpoint에서 지운다.
+ * 서버가 DB 반영 전에 죽으면 남아있는 segment를 recover()로 다시 읽는다.
+ */
+@Slf4j
+public class TransactionJournal implements Closeable {
+    private static final String SUFFIX = ".wal";
+
+    private final Path directory;
+    private final boolean sync;
+    private final List<Entry> unflushed = new ArrayList<>();
+
+    private long segment;
+    private FileChannel channel;
+    //쓰다 실패한 기록을 지우지 못한 상태, 재시작 후 recover()가 파일 내용을 기준으로 정리한다.
+    private boolean failed;
+
+    public TransactionJournal(Path directory, boolean sync) throws IOException {
+        this.directory = directory;
+        this.sync = sync;
+
+        Files.createDirectories(directory);
+        List<Long> segments = segments();
+        this.segment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+        this.channel = open(segment);
+    }
+
+    /**
+     * 기록 한 줄을 쓴다. 실패하면 쓰기 전 위치로 잘라내서 recover()에 나타나지 않게 한다.
+     * 잘라내지도 못하면 isFailed()가 true가 되고, 이후 append와 checkpoint는 하지 않는다.
+     */
+    public synchronized void append(Entry entry) throws IOException {
+        if (failed) {
+            throw new IOException("journal is failed, restart to recover : " + directory);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap((entry.toLine() + "\n").getBytes(StandardCharsets.UTF_8));
+        long position = channel.size();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            rollback(position, e);
+            throw e;
+        }
+        unflushed.add(entry);
+    }
+
+    public synchronized boolean isFailed() {
+        return failed;
+    }
+
+    private void rollback(long position, IOException cause) {
+        try {
+            channel.truncate(position);
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            failed = true;
+            log.error("Failed to truncate journal segment {} to {}", segment, position, e);
+        }
+    }
+
+    /**
+     * 지금까지 쓴 기록을 넘겨주고 새 segment로 넘어간다.
+     * 넘겨받은 기록을 DB에 반영한 뒤 checkpoint()를 불러야 한다.
+     */
+    public synchronized List<Entry> rotate() throws IOException {
+        if (unflushed.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        channel.close();
+        segment++;
+        channel = open(segment);
+
+        List<Entry> entries = new ArrayList<>(unflushed);
+        unflushed.clear();
+        return entries;
+    }
+
+    /**
+     * 현재 segment 이전의 파일은 모두 DB에 반영되었으므로 지운다.
+     */
+    public synchronized void checkpoint() throws IOException {
+        //지우지 못한 기록이 있는 segment는 재시작 때 recover()로 정리해야 하므로 남겨둔다.
+        if (failed) {
+            return;
+        }
+        for (Long number : segments()) {
+            if (number < segment) {
+                Files.deleteIfExists(pathOf(number));
+            }
+        }
+    }
+
+    /**
+     * 이전 실행에서 DB에 반영되지 못한 기록을 순서대로 읽는다.
+     * 마지막 줄이 쓰다가 끊긴 경우는 버린다.
+     */
+    public synchronized List<Entry> recover() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Long number : segments()) {
+            if (number >= segment) {
+                continue;
+            }
+            for (String line : Files.readAllLines(pathOf(number), StandardCharsets.UTF_8)) {
+                try {
+                    entries.add(Entry.fromLine(line));
+                } catch (RuntimeException e) {
+                    log.error("Skip broken journal line in segment {} : {}", number, line);
+                }
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return FileChannel.open(pathOf(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path pathOf(long number) {
+        return directory.resolve(String.format("%020d", number) + SUFFIX);
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @Builder
+    public static class Entry {
+        private String transactionId;
+        private TransactionType transactionType;
+        private TransactionResultType transactionResultType;
+        private Long accountId;
+        private Long ownerId;
+        private String accountNumber;
+        private Long amount;
+        private Long balanceSnapshot;
+        private LocalDateTime transactedAt;
+
+        private String toLine() {
+            return String.join("\t",
+                    transactionId,
+                    transactionType.name(),
+                    transactionResultType.name(),
+                    String.valueOf(accountId),
+                    String.valueOf(ownerId),
+                    accountNumber,
+                    String.valueOf(amount),
+                    String.valueOf(balanceSnapshot),
+                    transactedAt.toString());
+        }
+
+        private static Entry fromLine(String line) {
+            String[] fields = line.split("\t");
+            if (fields.length != 9) {
+                throw new IllegalArgumentException("journal line has " + fields.length + " fields");
+            }
+            return Entry.builder()
+                    .transactionId(fields[0])
+                    .transactionType(TransactionType.valueOf(fields[1]))
+                    .transactionResultType(TransactionResultType.valueOf(fields[2]))
+                    .accountId(Long.valueOf(fields[3]))
+                    .ownerId(Long.valueOf(fields[4]))
+                    .accountNumber(fields[5])
+                    .amount(Long.valueOf(fields[6]))
+                    .balanceSnapshot(Long.valueOf(fields[7]))
+                    .transactedAt(LocalDateTime.parse(fields[8]))
+                    .build();
+        }
+    }
+}
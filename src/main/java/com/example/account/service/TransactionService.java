@@ -1,9 +1,17 @@
 package com.example.account.service;
 
+import com.example.account.Dto.AccountOwnership;
+import com.example.account.Dto.TransactionCursor;
 import com.example.account.Dto.TransactionDto;
+import com.example.account.Dto.TransactionHistory;
+import com.example.account.Dto.TransactionHistoryItem;
+import com.example.account.Dto.TransactionView;
+import com.example.account.Dto.TransferDto;
+import com.example.account.Dto.UseBalance;
+import com.example.account.Dto.UseBalanceBatch;
 import com.example.account.domain.Account;
-import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIdCodec;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
@@ -14,12 +22,24 @@ import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
@@ -30,45 +50,200 @@ import static com.example.account.type.TransactionType.*;
 @RequiredArgsConstructor
 
 public class TransactionService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final TransactionRepository transactionRepository;
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final AccountOwnershipCache accountOwnershipCache;
+    private final AccountSnapshotCache accountSnapshotCache;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final AccountMetrics accountMetrics;
+    private final TransactionArchive transactionArchive;
+
+    //account.engine.enabled=true 일 때만 존재, 잔액 사용/취소를 메모리 엔진이 처리한다.
+    @Autowired(required = false)
+    private BalanceEngine balanceEngine;
+
+    //true면 계좌 락 없이 version 조건부 update로 잔액을 바꾼다. 충돌하면 LockAopAspect가 다시 시도한다.
+    @Value("${account.concurrency.optimistic:false}")
+    private boolean optimistic;
+
+    //true면 계좌 엔티티를 읽지 않고 조건부 update로 잔액을 바꾸고, 바뀐 잔액을 다시 읽어 거래 기록에 남긴다.
+    @Value("${account.concurrency.atomic:false}")
+    private boolean atomic;
 
     @Transactional
     public TransactionDto useBalance(Long userId, String accountNumber, Long amount){
-        AccountUser accountUser = accountUserRepository.findById(userId)
-                .orElseThrow(()-> new AccountException(ErrorCode.USER_NOT_FOUND));
+        if (balanceEngine != null) {
+            return balanceEngine.useBalance(userId, accountNumber, amount);
+        }
+        if (atomic) {
+            return useBalanceAtomically(userId, accountNumber, amount);
+        }
+
+        long start = System.nanoTime();
+
+        //소유주와 상태는 캐시로 확인하므로 account_user를 조회하지 않는다.
+        AccountOwnership ownership = accountOwnershipCache.get(accountNumber);
+
+        validateOwnership(userId, ownership);
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT));
 
-        validateUseBalance(accountUser, account, amount);
+        validateUseBalance(account, amount);
+        long validated = System.nanoTime();
 
-        account.useBalance(amount);
+        if (optimistic) {
+            debitIfUnchanged(account, amount);
+        } else {
+            account.useBalance(amount);
+        }
+        accountSnapshotCache.evict(account.getId());
+
+        Transaction transaction = saveAndGetTransaction(USE, S, account, amount);
+        recordUseBalanceAfterCommit(start, validated);
 
-        return TransactionDto.fromEntity(saveAndGetTransaction(USE, S,account,amount));
+        return TransactionDto.fromEntity(transaction);
+    }
+
+    private TransactionDto useBalanceAtomically(Long userId, String accountNumber, Long amount) {
+        long start = System.nanoTime();
+
+        AccountOwnership ownership = accountOwnershipCache.get(accountNumber);
+
+        validateOwnership(userId, ownership);
+        long validated = System.nanoTime();
+
+        //상태와 잔액 확인은 update 조건에서 같이 한다.
+        Long balance = accountRepository.debitAndGetBalance(ownership.getAccountId(), amount)
+                .orElseThrow(() -> debitRejected(ownership.getAccountId()));
+        accountSnapshotCache.evict(ownership.getAccountId());
+
+        Transaction transaction = transactionRepository.save(newTransaction(USE, S,
+                accountRepository.getReferenceById(ownership.getAccountId()), amount, balance));
+        recordUseBalanceAfterCommit(start, validated);
+
+        return TransactionDto.fromEntity(transaction, accountNumber);
+    }
+
+    //저장 구간은 flush와 커밋이 끝난 시점까지 잰다. 롤백된 거래는 기록하지 않는다.
+    private void recordUseBalanceAfterCommit(long start, long validated) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accountMetrics.recordUseBalance(validated - start, System.nanoTime() - validated);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accountMetrics.recordUseBalance(validated - start, System.nanoTime() - validated);
+            }
+        });
+    }
+
+    //update가 반영되지 않은 이유는 실패한 경우에만 계좌를 읽어서 확인한다.
+    private AccountException debitRejected(Long accountId) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT));
+        if(account.getAccountStatus() != AccountStatus.IN_USE){
+            return new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        return new AccountException(ErrorCode.AMOUNT_EXCED_BALANCE);
+    }
+
+    /**
+     * 같은 계좌에 대한 여러 건의 잔액 사용을 한 트랜잭션에서 순서대로 처리한다.
+     * 호출하는 쪽에서 계좌 락을 잡고 있어야 한다.
+     * 실패한 건은 F로 기록하고 다음 건을 계속 처리하며, 거래 기록은 한 번에 저장한다.
+     */
+    @Transactional
+    public List<UseBalanceBatch.Result> useBalanceBatch(String accountNumber, List<UseBalance.Request> requests) {
+        if (balanceEngine != null) {
+            return requests.stream()
+                    .map(this::useBalanceInEngine)
+                    .collect(Collectors.toList());
+        }
+
+        AccountOwnership ownership = accountOwnershipCache.get(accountNumber);
+
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT));
+
+        List<Transaction> transactions = new ArrayList<>(requests.size());
+        List<ErrorCode> errorCodes = new ArrayList<>(requests.size());
+        for (UseBalance.Request request : requests) {
+            try {
+                validateOwnership(request.getUserId(), ownership);
+                validateUseBalance(account, request.getAmount());
+
+                account.useBalance(request.getAmount());
+                transactions.add(newTransaction(USE, S, account, request.getAmount()));
+                errorCodes.add(null);
+            } catch (AccountException e) {
+                transactions.add(newTransaction(USE, F, account, request.getAmount()));
+                errorCodes.add(e.getErrorCode());
+                accountMetrics.failedTransactionWritten(USE);
+            }
+        }
+
+        List<Transaction> saved = transactionRepository.saveAll(transactions);
+        accountSnapshotCache.evict(account.getId());
+
+        List<UseBalanceBatch.Result> results = new ArrayList<>(saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            results.add(UseBalanceBatch.Result.from(TransactionDto.fromEntity(saved.get(i)), errorCodes.get(i)));
+        }
+        return results;
+    }
+
+    private UseBalanceBatch.Result useBalanceInEngine(UseBalance.Request request) {
+        try {
+            return UseBalanceBatch.Result.from(
+                    balanceEngine.useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount()), null);
+        } catch (AccountException e) {
+            saveFiledUseTransaction(request.getAccountNumber(), request.getAmount());
+            return UseBalanceBatch.Result.fail(request, e.getErrorCode());
+        }
     }
 
     private Transaction saveAndGetTransaction(TransactionType transactionType, TransactionResultType transactionResultType, Account account, Long amount) {
-        return transactionRepository.save(
-                Transaction.builder()
-                        .transactionType(transactionType)
-                        .transactionResultType(transactionResultType)
-                        .account(account)
-                        .amount(amount)
-                        .balanceSnapshot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                        .transactedAt(LocalDateTime.now())
-                        .build()
-        );
-    }
-
-    private void validateUseBalance(AccountUser accountUser, Account account, Long amount) {
+        return transactionRepository.save(newTransaction(transactionType, transactionResultType, account, amount));
+    }
+
+    private Transaction newTransaction(TransactionType transactionType, TransactionResultType transactionResultType, Account account, Long amount) {
+        return newTransaction(transactionType, transactionResultType, account, amount, account.getBalance());
+    }
+
+    private Transaction newTransaction(TransactionType transactionType, TransactionResultType transactionResultType, Account account, Long amount, Long balanceSnapshot) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionId(transactionIdGenerator.nextId())
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private void validateOwnership(Long userId, AccountOwnership ownership) {
         //사용자 아이디와 계좌 소유주가 다른 경우
-        if(!Objects.equals(accountUser.getId(), account.getAccountUser().getId())){
+        if(!Objects.equals(userId, ownership.getOwnerId())){
+            if(!accountUserRepository.existsById(userId)){
+                throw new AccountException(ErrorCode.USER_NOT_FOUND);
+            }
             throw new AccountException(ErrorCode.USER_ACCOUNT_UNMATCH);
-        };
+        }
         //계좌가 이미 해지 상태인 경우
+        if(ownership.getAccountStatus() != AccountStatus.IN_USE){
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+    }
+
+    private void validateUseBalance(Account account, Long amount) {
+        //캐시가 다른 노드의 해지를 아직 모를 수 있으므로 읽어온 계좌로 한 번 더 확인
         if(account.getAccountStatus() != AccountStatus.IN_USE){
             throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
         }
@@ -79,58 +254,209 @@ public class TransactionService {
 
     }
 
-    @Transactional
+    //실패 기록은 FailedTransactionRecorder가 모아서 따로 저장한다. 요청 쓰레드는 DB를 보지 않는다.
     public void saveFiledUseTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT));
-
-        saveAndGetTransaction(USE,F,account,amount);
+        failedTransactionRecorder.record(USE, accountNumber, amount);
     }
 
     @Transactional
     public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(ErrorCode.Transaction_IS_NOT_Find));
+        if (balanceEngine != null) {
+            return balanceEngine.cancelBalance(transactionId, accountNumber, amount);
+        }
+
+        TransactionView transaction = findTransaction(transactionId);
+
+        AccountOwnership ownership = accountOwnershipCache.get(accountNumber);
+
+        if (atomic) {
+            validateCancelOwner(transaction, ownership);
+            validateCancelPeriod(transaction);
+
+            //반영되지 않았다면 잔액을 다시 읽어서 계좌가 없는지, 잔액이 부족한지 구분한다.
+            Long balance = accountRepository.creditAndGetBalance(ownership.getAccountId(), amount)
+                    .orElseThrow(()->accountRepository.findBalanceById(ownership.getAccountId()).isPresent()
+                            ? new AccountException(ErrorCode.CANCEL_MUST_FULLY)
+                            : new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT));
+            accountSnapshotCache.evict(ownership.getAccountId());
+
+            return TransactionDto.fromEntity(transactionRepository.save(newTransaction(CANCEL, S,
+                    accountRepository.getReferenceById(ownership.getAccountId()), amount, balance)), accountNumber);
+        }
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT));
 
-        validateCancelBalance(transaction,account,amount);
+        validateCancelBalance(transaction,ownership,account,amount);
 
-        account.cancelBalance(amount);
+        if (optimistic) {
+            creditIfUnchanged(account, amount);
+        } else {
+            account.cancelBalance(amount);
+        }
+        accountSnapshotCache.evict(account.getId());
 
         return TransactionDto.fromEntity(saveAndGetTransaction(CANCEL, S,account,amount));
     }
 
-    private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
-        //사용자 아이디와 계좌 소유주가 다른 경우
-        System.out.println(transaction.getAccount().getAccountUser().getId() + "  " + account.getAccountUser().getId());
-        if(!Objects.equals(transaction.getAccount().getAccountUser().getId(), account.getAccountUser().getId())){
-            throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
-        };
+    private void debitIfUnchanged(Account account, Long amount) {
+        if (accountRepository.debitIfUnchanged(account.getId(), account.getVersion(), amount) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Account.class, account.getId());
+        }
+        //update 후 영속성 컨텍스트가 비워져서 account는 준영속 상태, 거래 기록용 잔액만 맞춰둔다.
+        account.useBalance(amount);
+        account.setVersion(account.getVersion() + 1);
+    }
+
+    private void creditIfUnchanged(Account account, Long amount) {
+        if (accountRepository.creditIfUnchanged(account.getId(), account.getVersion(), amount) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Account.class, account.getId());
+        }
+        account.cancelBalance(amount);
+        account.setVersion(account.getVersion() + 1);
+    }
+
+    private void validateCancelBalance(TransactionView transaction, AccountOwnership ownership, Account account, Long amount) {
+        validateCancelOwner(transaction, ownership);
 
         //거래 금액이 잔액보다 큰경우
         if(account.getBalance() < amount){
             throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
         }
 
+        validateCancelPeriod(transaction);
+    }
+
+    private void validateCancelOwner(TransactionView transaction, AccountOwnership ownership) {
+        //사용자 아이디와 계좌 소유주가 다른 경우
+        if(!Objects.equals(transaction.getOwnerId(), ownership.getOwnerId())){
+            throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
+        }
+    }
+
+    private void validateCancelPeriod(TransactionView transaction) {
         if(transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))){
             throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
         }
-
     }
 
     public void saveFiledCancelTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+        failedTransactionRecorder.record(CANCEL, accountNumber, amount);
+    }
+
+    /**
+     * from 계좌에서 to 계좌로 이체한다. 출금, 입금과 두 거래 기록이 한 트랜잭션으로 반영된다.
+     * 호출하는 쪽에서 두 계좌의 락을 모두 잡고 있어야 한다. (LockService.lockAll)
+     */
+    @Transactional
+    public TransferDto transfer(Long userId, String fromAccountNumber, String toAccountNumber, Long amount) {
+        //메모리 엔진은 shard 하나 안에서만 잔액을 바꾸므로 두 shard에 걸친 이체를 처리할 수 없다.
+        if (balanceEngine != null) {
+            throw new AccountException(ErrorCode.TRANSFER_NOT_SUPPORTED);
+        }
+        if (Objects.equals(fromAccountNumber, toAccountNumber)) {
+            throw new AccountException(ErrorCode.TRANSFER_SAME_ACCOUNT);
+        }
+
+        validateOwnership(userId, accountOwnershipCache.get(fromAccountNumber));
+
+        //두 계좌를 한 번에 읽는다.
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(
+                        Arrays.asList(fromAccountNumber, toAccountNumber)).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+        Account from = Optional.ofNullable(accounts.get(fromAccountNumber))
                 .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT));
+        Account to = Optional.ofNullable(accounts.get(toAccountNumber))
+                .orElseThrow(()->new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT));
+
+        validateUseBalance(from, amount);
+        //해지된 계좌로는 입금하지 않는다.
+        if(to.getAccountStatus() != AccountStatus.IN_USE){
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
 
-        saveAndGetTransaction(CANCEL,F,account,amount);
+        //atomic 모드도 두 계좌의 락을 잡고 있으므로 읽은 계좌로 처리한다.
+        if (optimistic) {
+            debitIfUnchanged(from, amount);
+            creditIfUnchanged(to, amount);
+        } else {
+            from.useBalance(amount);
+            to.cancelBalance(amount);
+        }
+        accountSnapshotCache.evict(from.getId());
+        accountSnapshotCache.evict(to.getId());
+
+        List<Transaction> saved = transactionRepository.saveAll(Arrays.asList(
+                newTransaction(TRANSFER_OUT, S, from, amount),
+                newTransaction(TRANSFER_IN, S, to, amount)));
+
+        return new TransferDto(TransactionDto.fromEntity(saved.get(0), fromAccountNumber),
+                TransactionDto.fromEntity(saved.get(1), toAccountNumber));
+    }
+
+    public void saveFiledTransferTransaction(String fromAccountNumber, Long amount) {
+        failedTransactionRecorder.record(TRANSFER_OUT, fromAccountNumber, amount);
     }
 
     public TransactionDto queryTransactionId(String transactionId) {
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(ErrorCode.Transaction_IS_NOT_Find));
+        if (balanceEngine != null) {
+            Optional<TransactionDto> pending = balanceEngine.findPending(transactionId);
+            if (pending.isPresent()) {
+                return pending.get();
+            }
+        }
 
-        return TransactionDto.fromEntity(transaction);
+        return TransactionDto.fromView(findTransaction(transactionId));
+    }
+
+    /**
+     * 계좌의 거래 내역을 최신 거래부터 size건씩 조회한다.
+     * cursor가 없으면 첫 페이지, 있으면 그 뒤부터. 어느 페이지든 인덱스에서 size+1건만 읽는다.
+     */
+    public TransactionHistory getTransactionHistory(String accountNumber, String cursor, int size,
+                                                    TransactionType transactionType,
+                                                    TransactionResultType transactionResultType) {
+        Long accountId = accountOwnershipCache.get(accountNumber).getAccountId();
+        int pageSize = Math.min(Math.max(size, 1), MAX_HISTORY_PAGE_SIZE);
+        //한 건 더 읽어서 다음 페이지가 있는지 확인
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<TransactionHistoryItem> items;
+        if (cursor == null || cursor.isEmpty()) {
+            items = transactionRepository.findHistory(accountId, transactionType, transactionResultType, limit);
+        } else {
+            TransactionCursor after = decodeCursor(cursor);
+            items = transactionRepository.findHistoryAfter(accountId, transactionType, transactionResultType,
+                    after.getTransactedAt(), after.getId(), limit);
+        }
+
+        boolean hasNext = items.size() > pageSize;
+        return TransactionHistory.from(hasNext ? items.subList(0, pageSize) : items, hasNext);
+    }
+
+    private static TransactionCursor decodeCursor(String cursor) {
+        try {
+            return TransactionCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new AccountException(ErrorCode.INVALID_CURSOR);
+        }
+    }
+
+    private TransactionView findTransaction(String transactionId) {
+        long id;
+        try {
+            id = TransactionIdCodec.decode(transactionId);
+        } catch (IllegalArgumentException e) {
+            //형식이 맞지 않는 거래번호는 존재하지 않는 거래
+            throw new AccountException(ErrorCode.Transaction_IS_NOT_Find);
+        }
+
+        Optional<TransactionView> transaction = transactionRepository.findViewByTransactionId(id);
+        if (transaction.isPresent()) {
+            return transaction.get();
+        }
+        //1년이 지나 archive로 옮겨진 거래
+        return transactionArchive.find(id)
+                .orElseThrow(() -> new AccountException(ErrorCode.Transaction_IS_NOT_Find));
     }
 }
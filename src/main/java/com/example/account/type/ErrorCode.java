@@ -18,7 +18,18 @@ public enum ErrorCode {
     TRANSACTION_ACCOUNT_UN_MATCH("이 거래는 해당 계좌에서 발생한 거래가 아님"),
     CANCEL_MUST_FULLY("부분 취소는 허용되지 않습니다."),
     AMOUNT_EXCED_BALANCE("사용 금액이 잔액보다 더 크다."),
-    TOO_OLD_ORDER_TO_CANCEL("1년이 지난 거래는 취소가 불가능합니다."), ACCOUNT_TRANSACTION_LOCK("해당 계좌는 사용중");
+    TOO_OLD_ORDER_TO_CANCEL("1년이 지난 거래는 취소가 불가능합니다."), ACCOUNT_TRANSACTION_LOCK("해당 계좌는 사용중"),
+    ACCOUNT_TRANSACTION_QUEUE_FULL("해당 계좌에 대기 중인 거래가 너무 많습니다."),
+    ACCOUNT_TRANSACTION_TIMEOUT("거래 대기 시간이 초과되었습니다."),
+    ACCOUNT_NUMBER_EXHAUSTED("발급 가능한 계좌번호가 없습니다."),
+    BALANCE_ENGINE_FAILED("잔액 엔진이 중단되었습니다. 거래 결과는 재시작 후 거래 조회로 확인해야 합니다."),
+    ACCOUNT_CONCURRENT_UPDATE("다른 거래가 먼저 반영되어 처리하지 못했습니다."),
+    IDEMPOTENCY_KEY_IN_PROGRESS("같은 Idempotency-Key의 요청을 처리하고 있습니다."),
+    IDEMPOTENCY_KEY_REUSED("같은 Idempotency-Key로 다른 내용의 요청을 보냈습니다."),
+    INVALID_CURSOR("잘못된 페이지 커서입니다."),
+    INVALID_EXPORT_RANGE("내보낼 기간이 올바르지 않습니다."),
+    TRANSFER_SAME_ACCOUNT("같은 계좌로는 이체할 수 없습니다."),
+    TRANSFER_NOT_SUPPORTED("메모리 잔액 엔진에서는 이체를 지원하지 않습니다.");
 
 
     private final String description;
@@ -1,5 +1,7 @@
 package com.example.account.type;
 
 public enum TransactionType {
-    USE,NOT_USE,CANCEL;
+    USE,NOT_USE,CANCEL,
+    //계좌 이체는 출금/입금 두 건을 같은 트랜잭션에서 남긴다.
+    TRANSFER_OUT,TRANSFER_IN;
 }
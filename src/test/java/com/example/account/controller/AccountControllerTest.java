@@ -1,6 +1,7 @@
 package com.example.account.controller;
 
 import com.example.account.Dto.AccountDto;
+import com.example.account.Dto.AccountSnapshot;
 import com.example.account.Dto.CreateAccount;
 import com.example.account.Dto.DeleteAccount;
 import com.example.account.domain.Account;
@@ -90,24 +91,15 @@ class AccountControllerTest {
     @Test
     void successGetAccountByUserId() throws Exception {
         //given
-        List<AccountDto> accountsDto = Arrays.asList(
-                AccountDto.builder()
-                        .accountNumber("1234567890")
-                        .balance(1000L)
-                        .build(),
-                AccountDto.builder()
-                        .accountNumber("1111111111")
-                        .balance(2000L)
-                        .build(),
-                AccountDto.builder()
-                        .accountNumber("2222222222")
-                        .balance(3000L)
-                        .build()
+        List<AccountInfo> accountInfos = Arrays.asList(
+                new AccountInfo("1234567890", 1000L),
+                new AccountInfo("1111111111", 2000L),
+                new AccountInfo("2222222222", 3000L)
         );
 
 
-        given(accountService.getAccountByUserId(anyLong()))
-                .willReturn(accountsDto);
+        given(accountService.getAccountInfoByUserId(anyLong()))
+                .willReturn(accountInfos);
 
         //when
 
@@ -129,7 +121,7 @@ class AccountControllerTest {
     void successGetAccount() throws Exception {
         //given
         given(accountService.getAccount(anyLong()))
-                .willReturn(Account.builder()
+                .willReturn(AccountSnapshot.builder()
                         .accountNumber("3456")
                         .accountStatus(AccountStatus.IN_USE)
                         .build());
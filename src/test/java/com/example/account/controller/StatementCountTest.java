@@ -0,0 +1,225 @@
+package com.example.account.controller;
+
+import com.example.account.Dto.CancelBalance;
+import com.example.account.Dto.CreateAccount;
+import com.example.account.Dto.DeleteAccount;
+import com.example.account.Dto.UseBalance;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIdCodec;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.AccountNumberAllocator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * API 한 번에 실행되는 SQL 수를 확인한다.
+ * 다른 @SpringBootTest와 같은 context를 쓰도록 MockMvc는 직접 만든다.
+ * id 시퀀스는 pooled-lo(100부터 50씩)라서 block의 첫 id를 받는 insert에만 nextval이 한 번 더 붙는다.
+ */
+@SpringBootTest
+class StatementCountTest {
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MockMvc mockMvc;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    @DisplayName("거래 조회 - transaction과 account join 한 번")
+    void queryTransaction() throws Exception {
+        //given
+        Transaction transaction = saveTransaction("9000000011");
+        statistics.clear();
+
+        //when
+        mockMvc.perform(get("/transaction/{transactionId}",
+                        TransactionIdCodec.encode(transaction.getTransactionId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("9000000011"));
+
+        //then
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("거래 취소 - account_user는 조회하지 않음")
+    void cancelBalance() throws Exception {
+        //given
+        Transaction transaction = saveTransaction("9000000029");
+        statistics.clear();
+
+        //when
+        mockMvc.perform(post("/transaction/cancel")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CancelBalance.Request(
+                                TransactionIdCodec.encode(transaction.getTransactionId()), "9000000029", 1000L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionResult").value("S"));
+
+        //then
+        //원거래 조회, 소유주 캐시 적재, 계좌 조회, 거래 insert, 잔액 update
+        assertEquals(5 + sequenceCall(transaction.getId() + 1), statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("잔액 사용 - account_user는 조회하지 않음")
+    void useBalance() throws Exception {
+        //given
+        Transaction transaction = saveTransaction("9000000037");
+        Account account = transaction.getAccount();
+        statistics.clear();
+
+        //when
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UseBalance.Request(
+                                account.getAccountUser().getId(), "9000000037", 1000L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionResult").value("S"));
+
+        //then
+        //소유주 캐시 적재, 계좌 조회, 거래 insert, 잔액 update
+        assertEquals(4 + sequenceCall(transaction.getId() + 1), statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("계좌 생성 - 계좌번호는 예약한 구간에서 꺼내므로 account를 조회하지 않음")
+    void createAccount() throws Exception {
+        //given
+        Account account = saveAccount("9000000045", 0L);
+        //Redis 카운터가 처음 만들어질 때만 기존 계좌번호를 조회하므로 미리 구간을 예약해둔다.
+        accountNumberAllocator.next();
+        statistics.clear();
+
+        //when
+        mockMvc.perform(post("/account")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateAccount.Request(
+                                account.getAccountUser().getId(), 1000L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(account.getAccountUser().getId()));
+
+        //then
+        //사용자 조회, 계좌 수 count, 계좌 insert
+        assertEquals(3 + sequenceCall(account.getId() + 1), statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("계좌 해지 - account_user는 조회하지 않음")
+    void deleteAccount() throws Exception {
+        //given
+        Account account = saveAccount("9000000052", 0L);
+        statistics.clear();
+
+        //when
+        mockMvc.perform(delete("/accountDelete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DeleteAccount.Request(
+                                account.getAccountUser().getId(), "9000000052"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("9000000052"));
+
+        //then
+        //소유주 캐시 적재, 계좌 조회, 상태 update
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("계좌 목록 - (계좌번호, 잔액) 조회 한 번")
+    void getAccounts() throws Exception {
+        //given
+        Account account = saveAccount("9000000060", 9000L);
+        statistics.clear();
+
+        //when
+        mockMvc.perform(get("/account")
+                        .param("user_id", String.valueOf(account.getAccountUser().getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].accountNumber").value("9000000060"));
+
+        //then
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private Transaction saveTransaction(String accountNumber) {
+        Account account = saveAccount(accountNumber, 9000L);
+        return transactionRepository.save(Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionId(Long.parseLong(accountNumber) << 12)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(LocalDateTime.now())
+                .build());
+    }
+
+    private Account saveAccount(String accountNumber, Long balance) {
+        AccountUser user = accountUserRepository.save(AccountUser.builder()
+                .name("Pobi")
+                .build());
+        return accountRepository.save(Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .accountNumber(accountNumber)
+                .balance(balance)
+                .build());
+    }
+
+    //바로 앞에 저장한 엔티티의 다음 id가 새 block의 첫 id이면 시퀀스 조회가 한 번 더 있다.
+    private static int sequenceCall(long nextId) {
+        return (nextId - 100) % 50 == 0 ? 1 : 0;
+    }
+}
@@ -3,8 +3,14 @@ package com.example.account.controller;
 import com.example.account.Dto.AccountDto;
 import com.example.account.Dto.CancelBalance;
 import com.example.account.Dto.TransactionDto;
+import com.example.account.Dto.TransactionHistory;
+import com.example.account.Dto.Transfer;
+import com.example.account.Dto.TransferDto;
 import com.example.account.Dto.UseBalance;
+import com.example.account.Dto.UseBalanceBatch;
+import com.example.account.service.TransactionBatchService;
 import com.example.account.service.TransactionService;
+import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -21,8 +27,12 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -37,6 +47,9 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private TransactionBatchService transactionBatchService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -72,6 +85,40 @@ class TransactionControllerTest {
 
     }
 
+    @Test
+    void successUseBalanceBatch() throws Exception {
+        //given
+        given(transactionBatchService.useBalance(anyList()))
+                .willReturn(Arrays.asList(
+                        UseBalanceBatch.Result.builder()
+                                .accountNumber("1000000000")
+                                .transactionResult(TransactionResultType.S)
+                                .transactionId("transactionId")
+                                .amount(1000L)
+                                .transactedAt(LocalDateTime.now())
+                                .build(),
+                        UseBalanceBatch.Result.builder()
+                                .accountNumber("1000000000")
+                                .transactionResult(TransactionResultType.F)
+                                .amount(2000L)
+                                .errorCode(ErrorCode.AMOUNT_EXCED_BALANCE)
+                                .build()));
+
+        //when
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalanceBatch.Request(Arrays.asList(
+                                        new UseBalance.Request(1L, "1000000000", 1000L),
+                                        new UseBalance.Request(1L, "1000000000", 2000L))))))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].transactionResult").value("S"))
+                .andExpect(jsonPath("$.results[0].transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.results[1].transactionResult").value("F"))
+                .andExpect(jsonPath("$.results[1].errorCode").value("AMOUNT_EXCED_BALANCE"));
+    }
+
     @Test
     void successCancelBalance() throws Exception {
         //given
@@ -100,6 +147,74 @@ class TransactionControllerTest {
 
     }
 
+    @Test
+    void successTransfer() throws Exception {
+        //given
+        LocalDateTime now = LocalDateTime.now();
+        given(transactionService.transfer(anyLong(), anyString(), anyString(), anyLong()))
+                .willReturn(new TransferDto(
+                        TransactionDto.builder()
+                                .accountNumber("1000000000")
+                                .transactionType(TransactionType.TRANSFER_OUT)
+                                .transactionId("withdrawalId")
+                                .transactedAt(now)
+                                .amount(3000L)
+                                .transactionResultType(TransactionResultType.S)
+                                .build(),
+                        TransactionDto.builder()
+                                .accountNumber("2000000000")
+                                .transactionType(TransactionType.TRANSFER_IN)
+                                .transactionId("depositId")
+                                .transactedAt(now)
+                                .amount(3000L)
+                                .transactionResultType(TransactionResultType.S)
+                                .build()));
+
+        //when
+        //then
+        mockMvc.perform(post("/transaction/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new Transfer.Request(1L, "1000000000", "2000000000", 3000L))))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fromAccountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.toAccountNumber").value("2000000000"))
+                .andExpect(jsonPath("$.transactionResult").value("S"))
+                .andExpect(jsonPath("$.transactionId").value("withdrawalId"))
+                .andExpect(jsonPath("$.depositTransactionId").value("depositId"))
+                .andExpect(jsonPath("$.amount").value(3000L));
+    }
+
+    @Test
+    void successGetTransactionHistory() throws Exception {
+        //given
+        given(transactionService.getTransactionHistory(eq("1000000000"), isNull(), anyInt(),
+                eq(TransactionType.USE), isNull()))
+                .willReturn(TransactionHistory.builder()
+                        .transactions(Arrays.asList(
+                                TransactionHistory.Item.builder()
+                                        .transactionType(TransactionType.USE)
+                                        .transactionResult(TransactionResultType.S)
+                                        .transactionId("transactionId")
+                                        .amount(1000L)
+                                        .balanceSnapshot(9000L)
+                                        .transactedAt(LocalDateTime.now())
+                                        .build()))
+                        .nextCursor("nextCursor")
+                        .build());
+
+        //when
+        //then
+        mockMvc.perform(get("/account/1000000000/transactions?transactionType=USE"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions[0].transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.transactions[0].transactionResult").value("S"))
+                .andExpect(jsonPath("$.transactions[0].balanceSnapshot").value(9000))
+                .andExpect(jsonPath("$.nextCursor").value("nextCursor"));
+    }
+
     @Test
     void successQueryTransaction() throws Exception {
         //given
@@ -0,0 +1,248 @@
+package com.example.account.repository;
+
+import com.example.account.Dto.TransactionHistoryItem;
+import com.example.account.controller.AccountInfo;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.type.TransactionResultType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class AccountRepositoryTest {
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    @DisplayName("같은 계좌번호는 저장할 수 없음")
+    void uniqueAccountNumber() {
+        //given
+        AccountUser user = saveUser();
+        accountRepository.saveAndFlush(account(user, "1000000008"));
+
+        //when
+        //then
+        assertThrows(DataIntegrityViolationException.class,
+                () -> accountRepository.saveAndFlush(account(user, "1000000008")));
+    }
+
+    @Test
+    @DisplayName("같은 거래번호는 저장할 수 없음")
+    void uniqueTransactionId() {
+        //given
+        AccountUser user = saveUser();
+        Account account = accountRepository.saveAndFlush(account(user, "1000000008"));
+        transactionRepository.saveAndFlush(transaction(account, 1234L));
+
+        //when
+        //then
+        assertThrows(DataIntegrityViolationException.class,
+                () -> transactionRepository.saveAndFlush(transaction(account, 1234L)));
+    }
+
+    @Test
+    @DisplayName("가장 큰 계좌번호는 가장 최근 계좌가 아니어도 찾음")
+    void findMaxAccountNumber() {
+        //given
+        AccountUser user = saveUser();
+        accountRepository.saveAndFlush(account(user, "1000000016"));
+        accountRepository.saveAndFlush(account(user, "1000000008"));
+
+        //when
+        Optional<String> max = accountRepository.findMaxAccountNumber();
+
+        //then
+        assertEquals("1000000016", max.get());
+    }
+
+    @Test
+    @DisplayName("계좌번호와 소유주로 조회")
+    void findByAccountNumberAndUser() {
+        //given
+        AccountUser user = saveUser();
+        Account account = accountRepository.saveAndFlush(account(user, "1000000008"));
+        accountRepository.saveAndFlush(account(user, "1000000016"));
+
+        //when
+        //then
+        assertEquals(account.getId(), accountRepository.findByAccountNumber("1000000008").get().getId());
+        assertEquals(2, accountRepository.countByAccountUser(user));
+        assertEquals(2, accountRepository.findByAccountUser(user).size());
+    }
+
+    @Test
+    @DisplayName("사용자의 계좌번호와 잔액만 조회")
+    void findAccountInfoByUserId() {
+        //given
+        AccountUser user = saveUser();
+        accountRepository.saveAndFlush(account(user, "1000000008"));
+        accountRepository.saveAndFlush(account(user, "1000000016"));
+
+        //when
+        List<AccountInfo> accountInfos = accountRepository.findAccountInfoByUserId(user.getId());
+
+        //then
+        assertEquals(2, accountInfos.size());
+        assertEquals("1000000008", accountInfos.get(0).getAccountNumber());
+        assertEquals(10000L, accountInfos.get(0).getBalance());
+        assertTrue(accountRepository.findAccountInfoByUserId(user.getId() + 1).isEmpty());
+    }
+
+    @Test
+    @DisplayName("version이 같고 잔액이 충분할 때만 차감")
+    void debitIfUnchanged() {
+        //given
+        AccountUser user = saveUser();
+        Account account = accountRepository.saveAndFlush(account(user, "1000000008"));
+        Long version = account.getVersion();
+
+        //when
+        int stale = accountRepository.debitIfUnchanged(account.getId(), version + 1, 1000L);
+        int exceed = accountRepository.debitIfUnchanged(account.getId(), version, 20000L);
+        int debited = accountRepository.debitIfUnchanged(account.getId(), version, 1000L);
+        int again = accountRepository.debitIfUnchanged(account.getId(), version, 1000L);
+
+        //then
+        assertEquals(0, stale);
+        assertEquals(0, exceed);
+        assertEquals(1, debited);
+        assertEquals(0, again);
+        Account updated = accountRepository.findById(account.getId()).get();
+        assertEquals(9000L, updated.getBalance());
+        assertEquals(version + 1, updated.getVersion());
+    }
+
+    @Test
+    @DisplayName("조건부 update로 차감하고 바뀐 잔액을 반환")
+    void debitAndGetBalance() {
+        //given
+        AccountUser user = saveUser();
+        Account account = accountRepository.saveAndFlush(account(user, "1000000008"));
+
+        //when
+        Optional<Long> debited = accountRepository.debitAndGetBalance(account.getId(), 3000L);
+        Optional<Long> exceed = accountRepository.debitAndGetBalance(account.getId(), 8000L);
+        Optional<Long> credited = accountRepository.creditAndGetBalance(account.getId(), 3000L);
+
+        //then
+        assertEquals(7000L, debited.get());
+        assertFalse(exceed.isPresent());
+        assertEquals(10000L, credited.get());
+    }
+
+    @Test
+    @DisplayName("잔액보다 큰 금액의 취소 입금은 반영하지 않음")
+    void creditAndGetBalance_moreThanBalance() {
+        //given
+        AccountUser user = saveUser();
+        Account account = accountRepository.saveAndFlush(account(user, "1000000008"));
+
+        //when
+        Optional<Long> credited = accountRepository.creditAndGetBalance(account.getId(), 50000L);
+        Optional<Long> missing = accountRepository.creditAndGetBalance(account.getId() + 100L, 1000L);
+
+        //then
+        assertFalse(credited.isPresent());
+        assertEquals(10000L, accountRepository.findBalanceById(account.getId()).get());
+        assertFalse(missing.isPresent());
+    }
+
+    @Test
+    @DisplayName("거래 내역은 최신순, 커서 뒤부터 이어서 조회")
+    void findHistoryAfter() {
+        //given
+        AccountUser user = saveUser();
+        Account account = accountRepository.saveAndFlush(account(user, "1000000008"));
+        Account other = accountRepository.saveAndFlush(account(user, "1000000016"));
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        Transaction oldest = transactionRepository.save(transaction(account, 1L, now.minusMinutes(2), S));
+        Transaction failed = transactionRepository.save(transaction(account, 2L, now.minusMinutes(1), F));
+        Transaction sameTimeFirst = transactionRepository.save(transaction(account, 3L, now, S));
+        Transaction sameTimeSecond = transactionRepository.save(transaction(account, 4L, now, S));
+        transactionRepository.saveAndFlush(transaction(other, 5L, now, S));
+
+        //when
+        List<TransactionHistoryItem> first = transactionRepository.findHistory(
+                account.getId(), null, null, PageRequest.of(0, 2));
+        TransactionHistoryItem last = first.get(first.size() - 1);
+        List<TransactionHistoryItem> next = transactionRepository.findHistoryAfter(
+                account.getId(), null, null, last.getTransactedAt(), last.getId(), PageRequest.of(0, 2));
+        List<TransactionHistoryItem> succeeded = transactionRepository.findHistory(
+                account.getId(), USE, S, PageRequest.of(0, 10));
+
+        //then
+        //같은 시각이면 id가 큰 거래가 먼저
+        assertEquals(sameTimeSecond.getId(), first.get(0).getId());
+        assertEquals(sameTimeFirst.getId(), first.get(1).getId());
+        assertEquals(failed.getId(), next.get(0).getId());
+        assertEquals(oldest.getId(), next.get(1).getId());
+        assertEquals(3, succeeded.size());
+        assertTrue(succeeded.stream().noneMatch(item -> item.getId().equals(failed.getId())));
+    }
+
+    @Test
+    @DisplayName("id는 시퀀스에서 발급, data.sql의 id와 겹치지 않음")
+    void sequenceId() {
+        //given
+        //when
+        AccountUser first = saveUser();
+        AccountUser second = saveUser();
+
+        //then
+        assertTrue(first.getId() >= 100L);
+        assertEquals(first.getId() + 1, second.getId());
+    }
+
+    private AccountUser saveUser() {
+        return accountUserRepository.saveAndFlush(AccountUser.builder()
+                .name("Pobi")
+                .build());
+    }
+
+    private Account account(AccountUser user, String accountNumber) {
+        return Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .accountNumber(accountNumber)
+                .balance(10000L)
+                .build();
+    }
+
+    private Transaction transaction(Account account, Long transactionId) {
+        return transaction(account, transactionId, LocalDateTime.now(), S);
+    }
+
+    private Transaction transaction(Account account, Long transactionId, LocalDateTime transactedAt,
+                                    TransactionResultType transactionResultType) {
+        return Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(transactionResultType)
+                .transactionId(transactionId)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(transactedAt)
+                .build();
+    }
+}
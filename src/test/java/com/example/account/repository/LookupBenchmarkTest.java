@@ -0,0 +1,120 @@
+package com.example.account.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 대용량 데이터에서 계좌번호/거래번호 조회 시간이 일정한지 확인하는 벤치마크
+ * ./gradlew test -Dbenchmark=true -Dbenchmark.accounts=1000000 -Dbenchmark.transactions=50000000
+ */
+@Slf4j
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LookupBenchmarkTest {
+    private static final int STEPS = 5;
+    private static final int LOOKUPS = 2_000;
+    private static final int CHUNK = 10_000;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void lookupLatencyStaysFlat() {
+        long accounts = Long.getLong("benchmark.accounts", 1_000_000L);
+        long transactions = Long.getLong("benchmark.transactions", 50_000_000L);
+
+        jdbcTemplate.update("insert into account_user(id, name) values (100, 'benchmark')");
+
+        List<Double> accountLatencies = new ArrayList<>();
+        List<Double> transactionLatencies = new ArrayList<>();
+        long insertedAccounts = 0;
+        long insertedTransactions = 0;
+        for (int step = 1; step <= STEPS; step++) {
+            insertedAccounts = insertAccounts(insertedAccounts, accounts * step / STEPS);
+            insertedTransactions = insertTransactions(insertedTransactions, transactions * step / STEPS, insertedAccounts);
+
+            accountLatencies.add(measureAccountLookup(insertedAccounts));
+            transactionLatencies.add(measureTransactionLookup(insertedTransactions));
+            log.info("accounts={} transactions={} findByAccountNumber={}us findViewByTransactionId={}us",
+                    insertedAccounts, insertedTransactions,
+                    accountLatencies.get(step - 1), transactionLatencies.get(step - 1));
+        }
+
+        //인덱스 조회라면 데이터가 5배로 늘어도 조회 시간은 거의 그대로여야 한다.
+        assertTrue(accountLatencies.get(STEPS - 1) < accountLatencies.get(0) * 3);
+        assertTrue(transactionLatencies.get(STEPS - 1) < transactionLatencies.get(0) * 3);
+    }
+
+    private long insertAccounts(long from, long to) {
+        for (long start = from; start < to; start += CHUNK) {
+            List<Object[]> rows = new ArrayList<>();
+            for (long id = start + 1; id <= Math.min(to, start + CHUNK); id++) {
+                rows.add(new Object[]{id, 100L, "IN_USE", accountNumber(id), 10_000L});
+            }
+            jdbcTemplate.batchUpdate("insert into account(id, account_user_id, account_status, account_number, balance) "
+                    + "values (?, ?, ?, ?, ?)", rows);
+        }
+        return to;
+    }
+
+    private long insertTransactions(long from, long to, long accounts) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (long start = from; start < to; start += CHUNK) {
+            List<Object[]> rows = new ArrayList<>();
+            for (long id = start + 1; id <= Math.min(to, start + CHUNK); id++) {
+                rows.add(new Object[]{id, id % accounts + 1, "USE", "S", 100L, 9_900L, transactionId(id), now});
+            }
+            jdbcTemplate.batchUpdate("insert into transaction(id, account_id, transaction_type, transaction_result_type, "
+                    + "amount, balance_snapshot, transaction_id, transacted_at) values (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        }
+        return to;
+    }
+
+    private double measureAccountLookup(long accounts) {
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            long id = ThreadLocalRandom.current().nextLong(accounts) + 1;
+            assertTrue(accountRepository.findByAccountNumber(accountNumber(id)).isPresent());
+        }
+        return (System.nanoTime() - start) / 1_000.0 / LOOKUPS;
+    }
+
+    private double measureTransactionLookup(long transactions) {
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            long id = ThreadLocalRandom.current().nextLong(transactions) + 1;
+            assertTrue(transactionRepository.findViewByTransactionId(transactionId(id)).isPresent());
+        }
+        return (System.nanoTime() - start) / 1_000.0 / LOOKUPS;
+    }
+
+    private static String accountNumber(long id) {
+        return String.valueOf(1_000_000_000L + id);
+    }
+
+    private static long transactionId(long id) {
+        //발급기와 같이 시간순으로 증가하는 값
+        return id << 22;
+    }
+}
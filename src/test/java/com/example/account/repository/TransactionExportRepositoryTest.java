@@ -0,0 +1,90 @@
+package com.example.account.repository;
+
+import com.example.account.Dto.TransactionDto;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIdCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Import(TransactionExportRepository.class)
+class TransactionExportRepositoryTest {
+    private static final LocalDateTime FROM = LocalDateTime.of(2022, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2022, 2, 1, 0, 0);
+
+    @Autowired
+    private TransactionExportRepository transactionExportRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    @DisplayName("기간 안의 거래만 거래일시 순으로")
+    void exportRange() {
+        //given
+        Account account = saveAccount("1000000008");
+        Account other = saveAccount("1000000016");
+        transactionRepository.save(transaction(account, 1L, FROM.minusSeconds(1)));
+        transactionRepository.save(transaction(account, 2L, FROM.plusDays(2)));
+        transactionRepository.save(transaction(other, 3L, FROM.plusDays(1)));
+        transactionRepository.saveAndFlush(transaction(account, 4L, TO));
+
+        //when
+        List<TransactionDto> all = new ArrayList<>();
+        transactionExportRepository.export(null, FROM, TO, all::add);
+        List<TransactionDto> single = new ArrayList<>();
+        transactionExportRepository.export(account.getId(), FROM, TO, single::add);
+
+        //then
+        assertEquals(2, all.size());
+        assertEquals("1000000016", all.get(0).getAccountNumber());
+        assertEquals(TransactionIdCodec.encode(2L), all.get(1).getTransactionId());
+        assertEquals(FROM.plusDays(2), all.get(1).getTransactedAt());
+        assertEquals(1, single.size());
+        assertEquals("1000000008", single.get(0).getAccountNumber());
+    }
+
+    private Account saveAccount(String accountNumber) {
+        AccountUser user = accountUserRepository.save(AccountUser.builder()
+                .name("Pobi")
+                .build());
+        return accountRepository.save(Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .accountNumber(accountNumber)
+                .balance(10000L)
+                .build());
+    }
+
+    private Transaction transaction(Account account, Long transactionId, LocalDateTime transactedAt) {
+        return Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionId(transactionId)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(transactedAt)
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.account.repository;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 거래 기록 대량 저장 속도(rows/sec)를 JDBC batch 사용 전후로 비교하는 벤치마크
+ * ./gradlew test -Dbenchmark=true -Dbenchmark.rows=200000
+ */
+@Slf4j
+@DataJpaTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.show_sql=false")
+class TransactionWriteBenchmarkTest {
+    private static final int CHUNK = 1_000;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void batchedInsertIsFaster() {
+        int rows = Integer.getInteger("benchmark.rows", 200_000);
+        AccountUser user = accountUserRepository.save(AccountUser.builder().name("benchmark").build());
+        Account account = accountRepository.saveAndFlush(Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .accountNumber("1000000008")
+                .balance(0L)
+                .build());
+
+        //워밍업
+        write(account, CHUNK * 10, 1, 0);
+        write(account, CHUNK * 10, null, CHUNK * 10);
+
+        //before: 한 건씩 insert, after: hibernate.jdbc.batch_size 만큼 묶어서 insert
+        double before = write(account, rows, 1, CHUNK * 20);
+        double after = write(account, rows, null, CHUNK * 20 + rows);
+        log.info("rows={} batch_size=1 {} rows/sec, batch_size=default {} rows/sec", rows, before, after);
+
+        assertTrue(after > before);
+    }
+
+    private double write(Account account, int rows, Integer batchSize, long firstTransactionId) {
+        Session session = entityManager.unwrap(Session.class);
+        session.setJdbcBatchSize(batchSize);
+        Account reference = accountRepository.getReferenceById(account.getId());
+
+        long start = System.nanoTime();
+        for (int from = 0; from < rows; from += CHUNK) {
+            List<Transaction> transactions = new ArrayList<>(CHUNK);
+            for (int i = from; i < Math.min(rows, from + CHUNK); i++) {
+                transactions.add(Transaction.builder()
+                        .account(reference)
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .amount(100L)
+                        .balanceSnapshot(0L)
+                        .transactionId(firstTransactionId + i)
+                        .transactedAt(LocalDateTime.now())
+                        .build());
+            }
+            transactionRepository.saveAll(transactions);
+            entityManager.flush();
+            entityManager.clear();
+            reference = accountRepository.getReferenceById(account.getId());
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        session.setJdbcBatchSize(null);
+        return rows / elapsedSeconds;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.account.service;
+
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountMetricsTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AccountMetrics accountMetrics = new AccountMetrics(meterRegistry);
+
+    @Test
+    void recordLock() {
+        //when
+        accountMetrics.recordLockWait(TimeUnit.MILLISECONDS.toNanos(5), true);
+        accountMetrics.recordLockWait(TimeUnit.MILLISECONDS.toNanos(1000), false);
+        accountMetrics.recordLockHold(TimeUnit.MILLISECONDS.toNanos(3));
+        accountMetrics.lockFailed("ACLK");
+        accountMetrics.lockFailed("ACLK");
+
+        //then
+        assertEquals(1, meterRegistry.get("account.lock.wait").tag("result", "acquired").timer().count());
+        assertEquals(1000.0, meterRegistry.get("account.lock.wait").tag("result", "failed").timer()
+                .totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(1, meterRegistry.get("account.lock.hold").timer().count());
+        assertEquals(2.0, meterRegistry.get("account.lock.failures").tag("prefix", "ACLK").counter().count());
+    }
+
+    @Test
+    void recordTransaction() {
+        //when
+        accountMetrics.recordUseBalance(TimeUnit.MILLISECONDS.toNanos(2), TimeUnit.MILLISECONDS.toNanos(4));
+        accountMetrics.failedTransactionWritten(TransactionType.CANCEL);
+        accountMetrics.failedTransactionDropped(TransactionType.USE);
+
+        //then
+        assertEquals(2.0, meterRegistry.get("account.transaction.use").tag("phase", "validate").timer()
+                .totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(4.0, meterRegistry.get("account.transaction.use").tag("phase", "save").timer()
+                .totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(0.0, meterRegistry.get("account.transaction.failed.writes").tag("type", "USE").counter().count());
+        assertEquals(1.0, meterRegistry.get("account.transaction.failed.writes").tag("type", "CANCEL").counter().count());
+        assertEquals(1.0, meterRegistry.get("account.transaction.failed.dropped").tag("type", "USE").counter().count());
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RAtomicLong counter;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Test
+    @DisplayName("첫 계좌번호는 1000000008")
+    void firstAccountNumber() {
+        //given
+        AtomicLong redis = givenCounter();
+        given(accountRepository.findMaxAccountNumber()).willReturn(Optional.empty());
+        AccountNumberAllocator allocator = new AccountNumberAllocator(redissonClient, accountRepository, 100L);
+
+        //when
+        String first = allocator.next();
+        String second = allocator.next();
+
+        //then
+        verify(counter, times(1)).compareAndSet(100L, 99_999_999L);
+        assertEquals(100_000_099L, redis.get());
+        assertEquals("1000000008", first);
+        assertEquals("1000000016", second);
+        assertTrue(isValid(first));
+        assertTrue(isValid(second));
+    }
+
+    @Test
+    @DisplayName("기존 계좌가 있으면 그 다음 번호부터 발급")
+    void continueAfterExistingAccount() {
+        //given
+        givenCounter();
+        given(accountRepository.findMaxAccountNumber())
+                .willReturn(Optional.of("2147483647"));
+        AccountNumberAllocator allocator = new AccountNumberAllocator(redissonClient, accountRepository, 10L);
+
+        //when
+        String accountNumber = allocator.next();
+
+        //then
+        verify(counter, times(1)).compareAndSet(10L, 214_748_364L);
+        assertEquals("214748365", accountNumber.substring(0, 9));
+        assertTrue(Long.parseLong(accountNumber) > 2147483647L);
+    }
+
+    @Test
+    @DisplayName("가장 최근 계좌보다 큰 번호가 있으면 가장 큰 번호 다음부터 발급")
+    void continueAfterLargestAccountNumber() {
+        //given
+        givenCounter();
+        //id가 가장 큰 계좌는 1000000008, 가장 큰 번호는 1000000024
+        given(accountRepository.findMaxAccountNumber())
+                .willReturn(Optional.of("1000000024"));
+        AccountNumberAllocator allocator = new AccountNumberAllocator(redissonClient, accountRepository, 10L);
+
+        //when
+        String accountNumber = allocator.next();
+
+        //then
+        verify(counter, times(1)).compareAndSet(10L, 100_000_002L);
+        assertEquals("1000000032", accountNumber);
+    }
+
+    @Test
+    @DisplayName("예약한 구간을 다 쓸 때만 Redis에서 새 구간을 예약")
+    void reserveBlockOnce() {
+        //given
+        givenCounter();
+        given(accountRepository.findMaxAccountNumber()).willReturn(Optional.empty());
+        AccountNumberAllocator allocator = new AccountNumberAllocator(redissonClient, accountRepository, 50L);
+        Set<String> accountNumbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        //when
+        for (int i = 0; i < 1000; i++) {
+            executorService.submit(() -> accountNumbers.add(allocator.next()));
+        }
+        executorService.shutdown();
+
+        //then
+        assertDoesNotThrow(() -> assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS)));
+        assertEquals(1000, accountNumbers.size());
+        //처음 한 번은 빈 카운터에서 예약해서 버린다.
+        verify(counter, times(21)).addAndGet(50L);
+        assertTrue(accountNumbers.stream().allMatch(AccountNumberAllocatorTest::isValid));
+    }
+
+    @Test
+    @DisplayName("발급 가능한 번호를 다 씀 - 계좌번호 발급 실패")
+    void failExhausted() {
+        //given
+        given(redissonClient.getAtomicLong(anyString())).willReturn(counter);
+        given(counter.addAndGet(100L)).willReturn(1_000_000_050L);
+        AccountNumberAllocator allocator = new AccountNumberAllocator(redissonClient, accountRepository, 100L);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class, allocator::next);
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_NUMBER_EXHAUSTED, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("실행 중에 Redis 카운터가 사라지면 DB와 예약했던 구간 다음부터 다시 시작")
+    void reseedAfterCounterLost() {
+        //given
+        AtomicLong redis = givenCounter();
+        given(accountRepository.findMaxAccountNumber())
+                .willReturn(Optional.empty())
+                .willReturn(Optional.of("1000000008"));
+        AccountNumberAllocator allocator = new AccountNumberAllocator(redissonClient, accountRepository, 2L);
+        allocator.next();
+        allocator.next();
+
+        //when
+        redis.set(0L);
+        String afterReset = allocator.next();
+
+        //then
+        //DB에는 첫 번호만 있지만 이 노드가 예약했던 구간(100000001)까지는 건너뛴다.
+        assertEquals("100000002", afterReset.substring(0, 9));
+        assertTrue(isValid(afterReset));
+    }
+
+    @Test
+    void validateCheckDigit() {
+        assertTrue(isValid("1000000008"));
+        assertFalse(isValid("1000000000"));
+        assertFalse(isValid("10000000"));
+    }
+
+    //마지막 자리가 앞 9자리의 Luhn 검증번호인지
+    private static boolean isValid(String accountNumber) {
+        return accountNumber.length() == 10
+                && AccountNumberAllocator.checkDigit(Long.parseLong(accountNumber.substring(0, 9))) == accountNumber.charAt(9) - '0';
+    }
+
+    //Redis 카운터 대신 AtomicLong
+    private AtomicLong givenCounter() {
+        AtomicLong redis = new AtomicLong();
+        given(redissonClient.getAtomicLong(anyString())).willReturn(counter);
+        given(counter.compareAndSet(anyLong(), anyLong()))
+                .willAnswer(invocation -> redis.compareAndSet(invocation.getArgument(0), invocation.getArgument(1)));
+        given(counter.addAndGet(anyLong()))
+                .willAnswer(invocation -> redis.addAndGet(invocation.getArgument(0)));
+        return redis;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.account.service;
+
+import com.example.account.Dto.AccountOwnership;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountOwnershipCacheTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("두 번째 조회부터는 DB를 보지 않음")
+    void cacheHit() {
+        //given
+        AccountOwnershipCache cache = new AccountOwnershipCache(accountRepository, meterRegistry, 100, 60);
+        given(accountRepository.findOwnershipByAccountNumber("1000000008"))
+                .willReturn(Optional.of(new AccountOwnership(1L, 12L, IN_USE)));
+
+        //when
+        cache.get("1000000008");
+        AccountOwnership ownership = cache.get("1000000008");
+
+        //then
+        verify(accountRepository, times(1)).findOwnershipByAccountNumber("1000000008");
+        assertEquals(12L, ownership.getOwnerId());
+        assertEquals(1.0, gets("hit"));
+        assertEquals(1.0, gets("miss"));
+    }
+
+    @Test
+    @DisplayName("없는 계좌는 캐시하지 않음")
+    void accountNotFound() {
+        //given
+        AccountOwnershipCache cache = new AccountOwnershipCache(accountRepository, meterRegistry, 100, 60);
+        given(accountRepository.findOwnershipByAccountNumber("1000000008"))
+                .willReturn(Optional.empty());
+
+        //when
+        AccountException first = assertThrows(AccountException.class, () -> cache.get("1000000008"));
+        AccountException second = assertThrows(AccountException.class, () -> cache.get("1000000008"));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUNT, first.getErrorCode());
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUNT, second.getErrorCode());
+        verify(accountRepository, times(2)).findOwnershipByAccountNumber("1000000008");
+    }
+
+    @Test
+    @DisplayName("해지 후에는 다시 DB에서 읽음")
+    void evict() {
+        //given
+        AccountOwnershipCache cache = new AccountOwnershipCache(accountRepository, meterRegistry, 100, 60);
+        given(accountRepository.findOwnershipByAccountNumber("1000000008"))
+                .willReturn(Optional.of(new AccountOwnership(1L, 12L, IN_USE)));
+        cache.get("1000000008");
+
+        //when
+        cache.evict("1000000008");
+        cache.get("1000000008");
+
+        //then
+        verify(accountRepository, times(2)).findOwnershipByAccountNumber("1000000008");
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("result", result).functionCounter().count();
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.account.service;
 
-import com.example.account.domain.Account;
+import com.example.account.Dto.AccountSnapshot;
 import com.example.account.type.AccountStatus;
 import com.example.account.repository.AccountRepository;
 import org.junit.jupiter.api.DisplayName;
@@ -25,6 +25,9 @@ class AccountServiceTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private AccountSnapshotCache accountSnapshotCache;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -32,17 +35,18 @@ class AccountServiceTest {
     @DisplayName("계좌 조회 성공")
     void testXXX() {
         //given
-        given(accountRepository.findById(anyLong()))
-                .willReturn(Optional.of(Account.builder()
+        given(accountSnapshotCache.get(anyLong()))
+                .willReturn(AccountSnapshot.builder()
                         .accountStatus(AccountStatus.UNREGISTERED)
-                        .accountNumber("65789").build()));
+                        .accountNumber("65789").build());
         ArgumentCaptor<Long> captor = ArgumentCaptor.forClass(Long.class);
 
         //when
-        Account account = accountService.getAccount(4555L);
+        AccountSnapshot account = accountService.getAccount(4555L);
 
         //then
-        verify(accountRepository, times(1)).findById(captor.capture());
+        verify(accountSnapshotCache, times(1)).get(captor.capture());
+        verify(accountRepository, times(0)).findById(anyLong());
         verify(accountRepository, times(0)).save(any());
         assertEquals(4555L, captor.getValue());
         assertNotEquals(45515L, captor.getValue());
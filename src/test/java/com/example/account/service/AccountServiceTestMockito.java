@@ -1,6 +1,8 @@
 package com.example.account.service;
 
 import com.example.account.Dto.AccountDto;
+import com.example.account.Dto.AccountOwnership;
+import com.example.account.controller.AccountInfo;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.exception.AccountException;
@@ -15,6 +17,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -38,6 +41,16 @@ class AccountServiceTestMockito {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    private AccountOwnershipCache accountOwnershipCache;
+    @Mock
+    private AccountSnapshotCache accountSnapshotCache;
+    @Mock
+    private BalanceEngine balanceEngine;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -50,8 +63,8 @@ class AccountServiceTestMockito {
 
         user.setId(12L);
         //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, AccountStatus.IN_USE));
 
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -63,15 +76,100 @@ class AccountServiceTestMockito {
         ArgumentCaptor<Account> captor = ArgumentCaptor.forClass(Account.class);
 
         //when
-        AccountDto accountDto = accountService.deleteAccount(1L, "1234567890");
+        AccountDto accountDto = accountService.deleteAccount(12L, "1234567890");
 
         //then
         verify(accountRepository,times(1)).save(captor.capture());
+        verify(accountOwnershipCache, times(1)).evict("1234567890");
         assertEquals(12L, accountDto.getUserId());
         assertEquals("1000000012", captor.getValue().getAccountNumber());
         assertEquals(AccountStatus.UNREGISTERED, captor.getValue().getAccountStatus());
     }
 
+    @Test
+    @DisplayName("메모리 엔진 - 잔액 확인은 DB가 아니라 엔진에서")
+    void deleteAccount_engine(){
+        //given
+        ReflectionTestUtils.setField(accountService, "balanceEngine", balanceEngine);
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, AccountStatus.IN_USE));
+        //DB에는 아직 반영되지 않은 잔액
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountNumber("1234567890")
+                        .balance(100L)
+                        .build()));
+
+        //when
+        AccountDto accountDto = accountService.deleteAccount(12L, "1234567890");
+
+        //then
+        verify(balanceEngine, times(1)).unregister("1234567890");
+        assertEquals("1234567890", accountDto.getAccountNumber());
+    }
+
+    @Test
+    @DisplayName("캐시가 해지를 모르는 경우 - 읽은 계좌로 확인해서 해지 실패")
+    void deleteAccount_staleCacheUnregistered(){
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        //given
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, AccountStatus.IN_USE));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.UNREGISTERED)
+                        .accountNumber("1234567890")
+                        .balance(0L)
+                        .build()));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                ()-> accountService.deleteAccount(12L, "1234567890"));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, exception.getErrorCode());
+        verify(accountRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("캐시의 소유주가 오래된 경우 - 읽은 계좌로 확인해서 해지 실패")
+    void deleteAccount_staleCacheOwner(){
+        AccountUser otherUser = AccountUser.builder()
+                .name("tobi")
+                .build();
+        otherUser.setId(13L);
+        //given
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, AccountStatus.IN_USE));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(otherUser)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .accountNumber("1234567890")
+                        .balance(0L)
+                        .build()));
+        given(accountUserRepository.existsById(12L))
+                .willReturn(true);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                ()-> accountService.deleteAccount(12L, "1234567890"));
+
+        //then
+        assertEquals(ErrorCode.USER_ACCOUNT_UNMATCH, exception.getErrorCode());
+        verify(accountRepository, times(0)).save(any());
+    }
+
     @Test
     @DisplayName("해당 유저 없음 - 계좌 해지 실패")
     void deleteAccount_UserNotFound(){
@@ -81,8 +179,10 @@ class AccountServiceTestMockito {
 
         user.setId(12L);
         //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.empty());
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, AccountStatus.IN_USE));
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(false);
 
         //when
         AccountException exception = assertThrows(AccountException.class,
@@ -102,11 +202,8 @@ class AccountServiceTestMockito {
 
         user.setId(12L);
         //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.empty());
+        given(accountOwnershipCache.get(anyString()))
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT));
 
         //when
         AccountException exception = assertThrows(AccountException.class,
@@ -128,19 +225,14 @@ class AccountServiceTestMockito {
                 .build();
         otherUser.setId(13L);
         //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(Account.builder()
-                        .accountUser(otherUser)
-                        .balance(0L)
-                        .accountNumber("1234567890")
-                        .build()));
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, otherUser.getId(), AccountStatus.IN_USE));
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(true);
 
         //when
         AccountException exception = assertThrows(AccountException.class,
-                ()-> accountService.deleteAccount(1L, "1234567890"));
+                ()-> accountService.deleteAccount(12L, "1234567890"));
 
         //then
         assertEquals(ErrorCode.USER_ACCOUNT_UNMATCH, exception.getErrorCode());
@@ -158,8 +250,8 @@ class AccountServiceTestMockito {
                 .build();
         otherUser.setId(13L);
         //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, user.getId(), AccountStatus.IN_USE));
 
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -170,7 +262,7 @@ class AccountServiceTestMockito {
 
         //when
         AccountException exception = assertThrows(AccountException.class,
-                ()-> accountService.deleteAccount(1L, "1234567890"));
+                ()-> accountService.deleteAccount(12L, "1234567890"));
 
         //then
         assertEquals(ErrorCode.BALANCE_IS_NOT_EMPTY, exception.getErrorCode());
@@ -188,20 +280,12 @@ class AccountServiceTestMockito {
                 .build();
         otherUser.setId(13L);
         //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(Account.builder()
-                        .accountUser(user)
-                        .balance(100L)
-                        .accountStatus(AccountStatus.UNREGISTERED)
-                        .accountNumber("1234567890")
-                        .build()));
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, user.getId(), AccountStatus.UNREGISTERED));
 
         //when
         AccountException exception = assertThrows(AccountException.class,
-                ()-> accountService.deleteAccount(1L, "1234567890"));
+                ()-> accountService.deleteAccount(12L, "1234567890"));
 
         //then
         assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, exception.getErrorCode());
@@ -220,10 +304,8 @@ class AccountServiceTestMockito {
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
-        given(accountRepository.findFirstByOrderByIdDesc())
-                        .willReturn(Optional.of(Account.builder()
-                        .accountNumber("1000000012")
-                        .build()));
+        given(accountNumberAllocator.next())
+                .willReturn("1000000131");
 
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
@@ -240,7 +322,7 @@ class AccountServiceTestMockito {
         //then
         verify(accountRepository,times(1)).save(captor.capture());
         assertEquals(12L, accountDto.getUserId());
-        assertEquals("1000000013", captor.getValue().getAccountNumber());
+        assertEquals("1000000131", captor.getValue().getAccountNumber());
     }
 
     @Test
@@ -255,8 +337,8 @@ class AccountServiceTestMockito {
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.empty());
+        given(accountNumberAllocator.next())
+                .willReturn("1000000008");
 
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
@@ -271,7 +353,8 @@ class AccountServiceTestMockito {
         //then
         verify(accountRepository,times(1)).save(captor.capture());
         assertEquals(12L, accountDto.getUserId());
-        assertEquals("1000000000", captor.getValue().getAccountNumber());
+        assertEquals("1000000008", captor.getValue().getAccountNumber());
+        verify(accountRepository, times(0)).findMaxAccountNumber();
     }
 
     @Test
@@ -316,58 +399,59 @@ class AccountServiceTestMockito {
     }
 
     @Test
-    void successGetAccountByUserId(){
-        AccountUser user = AccountUser.builder()
-                .name("Pobi")
-                .build();
-        user.setId(12L);
+    @DisplayName("계좌 목록 - 조회 결과를 그대로 반환, 사용자 조회 없음")
+    void successGetAccountInfoByUserId(){
+        //given
+        given(accountRepository.findAccountInfoByUserId(12L))
+                .willReturn(Arrays.asList(
+                        new AccountInfo("1234567890", 1000L),
+                        new AccountInfo("1111111111", 2000L),
+                        new AccountInfo("2222222222", 3000L)));
 
+        //when
+        List<AccountInfo> accountInfos = accountService.getAccountInfoByUserId(12L);
 
-        List<Account> accountDto = Arrays.asList(
-                Account.builder()
-                        .accountUser(user)
-                        .accountNumber("1234567890")
-                        .balance(1000L)
-                        .build(),
-                Account.builder()
-                        .accountUser(user)
-                        .accountNumber("1111111111")
-                        .balance(2000L)
-                        .build(),
-                Account.builder()
-                        .accountUser(user)
-                        .accountNumber("2222222222")
-                        .balance(3000L)
-                        .build()
-        );
-        //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
+        //then
+        assertEquals(3, accountInfos.size());
+        assertEquals("1234567890", accountInfos.get(0).getAccountNumber());
+        assertEquals(1000L, accountInfos.get(0).getBalance());
+        assertEquals("1111111111", accountInfos.get(1).getAccountNumber());
+        assertEquals(2000L, accountInfos.get(1).getBalance());
+        assertEquals("2222222222", accountInfos.get(2).getAccountNumber());
+        assertEquals(3000L, accountInfos.get(2).getBalance());
+        verify(accountUserRepository, times(0)).existsById(anyLong());
+    }
 
-        given(accountRepository.findByAccountUser(any()))
-                .willReturn(accountDto);
+    @Test
+    @DisplayName("계좌 목록 - 계좌가 없는 사용자는 빈 목록")
+    void getAccountInfoByUserId_noAccount(){
+        //given
+        given(accountRepository.findAccountInfoByUserId(12L))
+                .willReturn(Arrays.asList());
+        given(accountUserRepository.existsById(12L))
+                .willReturn(true);
 
         //when
-        List<AccountDto> accountDtos = accountService.getAccountByUserId(1L);
-
-        assertEquals(3,accountDtos.size());
+        List<AccountInfo> accountInfos = accountService.getAccountInfoByUserId(12L);
 
-        assertEquals("1234567890",accountDtos.get(0).getAccountNumber());
-        assertEquals(1000L,accountDtos.get(0).getBalance());
-        assertEquals("1111111111",accountDtos.get(1).getAccountNumber());
-        assertEquals(2000L,accountDtos.get(1).getBalance());
-        assertEquals("2222222222",accountDtos.get(2).getAccountNumber());
-        assertEquals(3000L,accountDtos.get(2).getBalance());
+        //then
+        assertTrue(accountInfos.isEmpty());
     }
 
     @Test
-    void failedToGetAccounts(){
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.empty());
+    @DisplayName("계좌 목록 - 계좌가 없고 사용자도 없음")
+    void getAccountInfoByUserId_UserNotFound(){
+        //given
+        given(accountRepository.findAccountInfoByUserId(3L))
+                .willReturn(Arrays.asList());
+        given(accountUserRepository.existsById(3L))
+                .willReturn(false);
+
         //when
         AccountException exception = assertThrows(AccountException.class,
-                ()-> accountService.getAccountByUserId(3L));
+                ()-> accountService.getAccountInfoByUserId(3L));
 
+        //then
         assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
     }
 
@@ -376,4 +460,5 @@ class AccountServiceTestMockito {
 
 
 
+
 }
\ No newline at end of file
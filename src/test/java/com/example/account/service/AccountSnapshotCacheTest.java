@@ -0,0 +1,88 @@
+package com.example.account.service;
+
+import com.example.account.Dto.AccountSnapshot;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountSnapshotCacheTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("두 번째 조회부터는 DB를 보지 않음")
+    void cacheHit() {
+        //given
+        AccountSnapshotCache cache = new AccountSnapshotCache(accountRepository, meterRegistry, 100, 5);
+        given(accountRepository.findSnapshotById(1L))
+                .willReturn(Optional.of(snapshot(10000L)));
+
+        //when
+        cache.get(1L);
+        AccountSnapshot snapshot = cache.get(1L);
+
+        //then
+        verify(accountRepository, times(1)).findSnapshotById(1L);
+        assertEquals(10000L, snapshot.getBalance());
+    }
+
+    @Test
+    @DisplayName("없는 계좌 - 계좌 조회 실패")
+    void accountNotFound() {
+        //given
+        AccountSnapshotCache cache = new AccountSnapshotCache(accountRepository, meterRegistry, 100, 5);
+        given(accountRepository.findSnapshotById(1L))
+                .willReturn(Optional.empty());
+
+        //when
+        AccountException exception = assertThrows(AccountException.class, () -> cache.get(1L));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUNT, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("잔액이 바뀌면 다시 DB에서 읽음")
+    void evict() {
+        //given
+        AccountSnapshotCache cache = new AccountSnapshotCache(accountRepository, meterRegistry, 100, 5);
+        given(accountRepository.findSnapshotById(1L))
+                .willReturn(Optional.of(snapshot(10000L)), Optional.of(snapshot(9000L)));
+        cache.get(1L);
+
+        //when
+        cache.evict(1L);
+        AccountSnapshot snapshot = cache.get(1L);
+
+        //then
+        verify(accountRepository, times(2)).findSnapshotById(1L);
+        assertEquals(9000L, snapshot.getBalance());
+    }
+
+    private AccountSnapshot snapshot(Long balance) {
+        return AccountSnapshot.builder()
+                .id(1L)
+                .userId(12L)
+                .accountNumber("1000000008")
+                .accountStatus(IN_USE)
+                .balance(balance)
+                .build();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionServiceTest {
+
+    @Test
+    @DisplayName("같은 계좌의 요청은 하나씩 통과")
+    void serializePerAccount() throws Exception {
+        //given
+        AdmissionService admissionService = new AdmissionService(64, 5000L);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        //when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(executorService.submit(() -> {
+                admissionService.enter("1000000000");
+                try {
+                    maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                    inside.decrementAndGet();
+                } finally {
+                    admissionService.leave("1000000000");
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+
+        //then
+        assertEquals(1, maxInside.get());
+        assertEquals(0, admissionService.getDepth("1000000000"));
+    }
+
+    @Test
+    @DisplayName("대기열 크기 N - N명까지는 차례를 기다리고 N+1번째는 실패, 모두 나가면 0")
+    void admitUpToMaxDepth() throws Exception {
+        //given
+        int maxDepth = 3;
+        AdmissionService admissionService = new AdmissionService(maxDepth, 5000L);
+        AtomicInteger passed = new AtomicInteger();
+        admissionService.enter("1000000000");
+
+        List<Thread> waiters = new ArrayList<>();
+        for (int i = 1; i < maxDepth; i++) {
+            Thread waiter = new Thread(() -> {
+                admissionService.enter("1000000000");
+                passed.incrementAndGet();
+                admissionService.leave("1000000000");
+            });
+            waiters.add(waiter);
+            waiter.start();
+        }
+        while (admissionService.getDepth("1000000000") < maxDepth) {
+            Thread.sleep(1L);
+        }
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> admissionService.enter("1000000000"));
+        int passedBeforeLeave = passed.get();
+        admissionService.leave("1000000000");
+        for (Thread waiter : waiters) {
+            waiter.join(5000L);
+        }
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_QUEUE_FULL, exception.getErrorCode());
+        assertEquals(0, passedBeforeLeave);
+        assertEquals(maxDepth - 1, passed.get());
+        assertEquals(0, admissionService.getDepth("1000000000"));
+    }
+
+    @Test
+    @DisplayName("대기열이 가득 참 - 요청 실패")
+    void failQueueFull() throws Exception {
+        //given
+        AdmissionService admissionService = new AdmissionService(2, 5000L);
+        CountDownLatch waiting = new CountDownLatch(1);
+        admissionService.enter("1000000000");
+
+        Thread waiter = new Thread(() -> {
+            waiting.countDown();
+            admissionService.enter("1000000000");
+            admissionService.leave("1000000000");
+        });
+        waiter.start();
+        waiting.await();
+        while (admissionService.getDepth("1000000000") < 2) {
+            Thread.sleep(1L);
+        }
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> admissionService.enter("1000000000"));
+        admissionService.leave("1000000000");
+        waiter.join(5000L);
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_QUEUE_FULL, exception.getErrorCode());
+        assertEquals(0, admissionService.getDepth("1000000000"));
+    }
+
+    @Test
+    @DisplayName("차례가 오지 않음 - 요청 실패")
+    void failTimeout() {
+        //given
+        AdmissionService admissionService = new AdmissionService(8, 50L);
+        admissionService.enter("1000000000");
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> admissionService.enter("1000000000"));
+        admissionService.leave("1000000000");
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_TIMEOUT, exception.getErrorCode());
+        assertEquals(0, admissionService.getDepth("1000000000"));
+    }
+
+    @Test
+    @DisplayName("다른 계좌는 서로 기다리지 않음")
+    void independentAccounts() {
+        //given
+        AdmissionService admissionService = new AdmissionService(8, 50L);
+        admissionService.enter("1000000000");
+
+        //when
+        //then
+        assertDoesNotThrow(() -> admissionService.enter("2000000000"));
+        admissionService.leave("2000000000");
+        admissionService.leave("1000000000");
+    }
+}
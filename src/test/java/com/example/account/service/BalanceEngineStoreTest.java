@@ -0,0 +1,79 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIdCodec;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceEngineStoreTest {
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private AccountSnapshotCache accountSnapshotCache;
+
+    @InjectMocks
+    private BalanceEngineStore balanceEngineStore;
+
+    @Test
+    @DisplayName("저장된 거래 확인은 batch 크기씩 나눠서 조회")
+    void persist_chunkExistingCheck() {
+        //given
+        List<TransactionJournal.Entry> entries = new ArrayList<>();
+        for (long id = 1; id <= 120; id++) {
+            entries.add(TransactionJournal.Entry.builder()
+                    .transactionId(TransactionIdCodec.encode(id))
+                    .transactionType(USE)
+                    .transactionResultType(S)
+                    .accountId(1L)
+                    .ownerId(12L)
+                    .accountNumber("1000000000")
+                    .amount(1L)
+                    .balanceSnapshot(1000L - id)
+                    .transactedAt(LocalDateTime.now())
+                    .build());
+        }
+        given(transactionRepository.findExistingTransactionIds(anyCollection()))
+                .willReturn(Collections.singletonList(1L))
+                .willReturn(Collections.emptyList());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> idCaptor = ArgumentCaptor.forClass(Collection.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> saveCaptor = ArgumentCaptor.forClass(List.class);
+
+        //when
+        balanceEngineStore.persist(entries);
+
+        //then
+        verify(transactionRepository, times(3)).findExistingTransactionIds(idCaptor.capture());
+        assertEquals(50, idCaptor.getAllValues().get(0).size());
+        assertEquals(20, idCaptor.getAllValues().get(2).size());
+        verify(transactionRepository, times(1)).saveAll(saveCaptor.capture());
+        assertEquals(119, saveCaptor.getValue().size());
+        verify(accountRepository, times(1)).updateBalance(1L, 880L);
+    }
+}
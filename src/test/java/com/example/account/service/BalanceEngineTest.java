@@ -0,0 +1,264 @@
+package com.example.account.service;
+
+import com.example.account.Dto.TransactionDto;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.TransactionIdCodec;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceEngineTest {
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private AccountUserRepository accountUserRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private BalanceEngineStore balanceEngineStore;
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @TempDir
+    Path journalPath;
+
+    @Test
+    @DisplayName("잔액 사용은 메모리에서 처리하고 flush에서 한 번에 저장")
+    void successUseBalance() throws Exception {
+        //given
+        BalanceEngine balanceEngine = newEngine();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account(10000L)));
+
+        //when
+        TransactionDto first = balanceEngine.useBalance(12L, "1000000000", 1000L);
+        TransactionDto second = balanceEngine.useBalance(12L, "1000000000", 2000L);
+        balanceEngine.flush();
+
+        //then
+        verify(accountRepository, times(1)).findByAccountNumber("1000000000");
+        assertEquals(USE, first.getTransactionType());
+        assertEquals(S, first.getTransactionResultType());
+        assertEquals(9000L, first.getBalanceSnapshot());
+        assertEquals(7000L, second.getBalanceSnapshot());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionJournal.Entry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(balanceEngineStore, times(1)).persist(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertEquals(first.getTransactionId(), captor.getValue().get(0).getTransactionId());
+        assertEquals(7000L, captor.getValue().get(1).getBalanceSnapshot());
+        assertFalse(balanceEngine.findPending(first.getTransactionId()).isPresent());
+
+        balanceEngine.stop();
+    }
+
+    @Test
+    @DisplayName("저장 전 거래도 조회와 취소 가능")
+    void successCancelPendingBalance() throws Exception {
+        //given
+        BalanceEngine balanceEngine = newEngine();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account(10000L)));
+        TransactionDto used = balanceEngine.useBalance(12L, "1000000000", 1000L);
+
+        //when
+        TransactionDto canceled = balanceEngine.cancelBalance(used.getTransactionId(), "1000000000", 1000L);
+
+        //then
+        assertTrue(balanceEngine.findPending(used.getTransactionId()).isPresent());
+        assertEquals(CANCEL, canceled.getTransactionType());
+        assertEquals(10000L, canceled.getBalanceSnapshot());
+
+        balanceEngine.stop();
+    }
+
+    @Test
+    @DisplayName("사용과 flush가 겹쳐도 저장된 거래는 pending에 남지 않음")
+    void useBalanceWhileFlushing() throws Exception {
+        //given
+        BalanceEngine balanceEngine = newEngine();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account(1_000_000L)));
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (running.get()) {
+                try {
+                    balanceEngine.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        flusher.start();
+
+        //when
+        List<String> transactionIds = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            transactionIds.add(balanceEngine.useBalance(12L, "1000000000", 1L).getTransactionId());
+        }
+        running.set(false);
+        flusher.join();
+        balanceEngine.flush();
+
+        //then
+        for (String transactionId : transactionIds) {
+            assertFalse(balanceEngine.findPending(transactionId).isPresent(), transactionId);
+        }
+
+        balanceEngine.stop();
+    }
+
+    @Test
+    @DisplayName("계좌의 돈보다 사용금액이 큰경우 - 기록을 남기지 않음")
+    void failUseBalance_amountExceed() throws Exception {
+        //given
+        BalanceEngine balanceEngine = newEngine();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account(100L)));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceEngine.useBalance(12L, "1000000000", 200L));
+        balanceEngine.flush();
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCED_BALANCE, exception.getErrorCode());
+        verify(balanceEngineStore, times(0)).persist(any());
+
+        balanceEngine.stop();
+    }
+
+    @Test
+    @DisplayName("계좌 소유주 다름 - 잔액 사용 실패")
+    void failUseBalance_userUnMatch() throws Exception {
+        //given
+        BalanceEngine balanceEngine = newEngine();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account(10000L)));
+        given(accountUserRepository.existsById(13L))
+                .willReturn(true);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceEngine.useBalance(13L, "1000000000", 200L));
+
+        //then
+        assertEquals(ErrorCode.USER_ACCOUNT_UNMATCH, exception.getErrorCode());
+
+        balanceEngine.stop();
+    }
+
+    @Test
+    @DisplayName("해지는 엔진 잔액으로 판단하고, 해지한 계좌의 사용은 거절")
+    void unregister() throws Exception {
+        //given
+        BalanceEngine balanceEngine = newEngine();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account(1000L)));
+        balanceEngine.useBalance(12L, "1000000000", 400L);
+
+        //when
+        AccountException notEmpty = assertThrows(AccountException.class,
+                () -> balanceEngine.unregister("1000000000"));
+        balanceEngine.useBalance(12L, "1000000000", 600L);
+        balanceEngine.unregister("1000000000");
+        AccountException unregistered = assertThrows(AccountException.class,
+                () -> balanceEngine.useBalance(12L, "1000000000", 0L));
+
+        //then
+        assertEquals(ErrorCode.BALANCE_IS_NOT_EMPTY, notEmpty.getErrorCode());
+        assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, unregistered.getErrorCode());
+
+        balanceEngine.reopen("1000000000");
+        assertEquals(0L, balanceEngine.useBalance(12L, "1000000000", 0L).getBalanceSnapshot());
+
+        balanceEngine.stop();
+    }
+
+    @Test
+    @DisplayName("저장 전에 종료되면 다음 시작 때 journal에서 복구")
+    void recoverFromJournal() throws Exception {
+        //given
+        TransactionJournal journal = new TransactionJournal(journalPath, true);
+        journal.append(TransactionJournal.Entry.builder()
+                .transactionId(TransactionIdCodec.encode(1234L))
+                .transactionType(USE)
+                .transactionResultType(S)
+                .accountId(1L)
+                .ownerId(12L)
+                .accountNumber("1000000000")
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(LocalDateTime.now())
+                .build());
+        journal.close();
+
+        BalanceEngine balanceEngine = newEngine();
+
+        //when
+        balanceEngine.start();
+
+        //then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionJournal.Entry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(balanceEngineStore, times(1)).persist(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(TransactionIdCodec.encode(1234L), captor.getValue().get(0).getTransactionId());
+        assertTrue(new TransactionJournal(journalPath, true).recover().isEmpty());
+
+        balanceEngine.stop();
+    }
+
+    private BalanceEngine newEngine() throws Exception {
+        return new BalanceEngine(accountRepository, accountUserRepository, transactionRepository,
+                balanceEngineStore, transactionArchive, new TransactionIdGenerator(0L), 2, journalPath.toString(), false, 50L);
+    }
+
+    private Account account(Long balance) {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .accountNumber("1000000000")
+                .balance(balance)
+                .build();
+        account.setId(1L);
+        return account;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionRecorderTest {
+    @Mock
+    private FailedTransactionStore failedTransactionStore;
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+    @Mock
+    private AccountMetrics accountMetrics;
+
+    @Test
+    @DisplayName("쌓인 기록을 batch-size씩 나눠서 저장")
+    void flushInBatches() {
+        //given
+        FailedTransactionRecorder recorder = newRecorder(10, 2);
+        given(transactionIdGenerator.nextId())
+                .willReturn(1L, 2L, 3L);
+        List<List<FailedTransactionRecorder.Entry>> batches = new ArrayList<>();
+        willAnswer(invocation -> batches.add(new ArrayList<>(invocation.getArgument(0))))
+                .given(failedTransactionStore).persist(any());
+
+        //when
+        recorder.record(USE, "1000000008", 100L);
+        recorder.record(USE, "1000000008", 200L);
+        recorder.record(CANCEL, "1000000016", 300L);
+        recorder.flush();
+
+        //then
+        assertEquals(2, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertEquals(3L, batches.get(1).get(0).getTransactionId());
+        assertEquals(CANCEL, batches.get(1).get(0).getTransactionType());
+    }
+
+    @Test
+    @DisplayName("대기열이 가득 차면 버리고 dropped 증가")
+    void dropWhenFull() {
+        //given
+        FailedTransactionRecorder recorder = newRecorder(1, 10);
+
+        //when
+        recorder.record(USE, "1000000008", 100L);
+        recorder.record(CANCEL, "1000000008", 200L);
+        recorder.flush();
+
+        //then
+        verify(accountMetrics, times(1)).failedTransactionDropped(CANCEL);
+        verify(failedTransactionStore, times(1)).persist(any());
+    }
+
+    @Test
+    @DisplayName("저장에 실패한 묶음은 버리고 dropped 증가")
+    void dropWhenPersistFails() {
+        //given
+        FailedTransactionRecorder recorder = newRecorder(10, 10);
+        willThrow(new IllegalStateException("db down"))
+                .given(failedTransactionStore).persist(any());
+
+        //when
+        recorder.record(USE, "1000000008", 100L);
+        recorder.record(USE, "1000000008", 200L);
+        assertDoesNotThrow(recorder::flush);
+
+        //then
+        verify(accountMetrics, times(2)).failedTransactionDropped(USE);
+    }
+
+    private FailedTransactionRecorder newRecorder(int capacity, int batchSize) {
+        return new FailedTransactionRecorder(failedTransactionStore, transactionIdGenerator, accountMetrics,
+                capacity, batchSize, 0L, 100L);
+    }
+}
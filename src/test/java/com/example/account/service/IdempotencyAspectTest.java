@@ -0,0 +1,238 @@
+package com.example.account.service;
+
+import com.example.account.Dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.concurrent.ScheduledFuture;
+
+import static com.example.account.type.TransactionResultType.S;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyAspectTest {
+    private static final String KEY = "/transaction/use:1000000008:retry-1";
+
+    private static final UseBalance.Request BODY = new UseBalance.Request(12L, "1000000008", 1000L);
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    @Mock
+    private ProceedingJoinPoint proceedingJoinPoint;
+
+    @Mock
+    private MethodSignature methodSignature;
+
+    @Mock
+    private ScheduledFuture<?> renewal;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private IdempotencyAspect idempotencyAspect;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyAspect = new IdempotencyAspect(idempotencyStore, objectMapper);
+        request = new MockHttpServletRequest("POST", "/transaction/use");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("헤더가 없으면 저장소를 보지 않음")
+    void withoutKey() throws Throwable {
+        //given
+        given(proceedingJoinPoint.proceed())
+                .willReturn(response());
+
+        //when
+        idempotencyAspect.aroundMethod(proceedingJoinPoint, BODY);
+
+        //then
+        verify(proceedingJoinPoint, times(1)).proceed();
+        verify(idempotencyStore, times(0)).find(anyString());
+    }
+
+    @Test
+    @DisplayName("처음 받은 키는 처리한 뒤 응답을 저장")
+    void firstRequest() throws Throwable {
+        //given
+        request.addHeader(IdempotencyAspect.HEADER, "retry-1");
+        givenReturnType();
+        given(idempotencyStore.find(KEY))
+                .willReturn(null);
+        given(idempotencyStore.reserve(KEY, fingerprint(BODY)))
+                .willReturn(true);
+        givenRenewal(KEY, fingerprint(BODY));
+        given(proceedingJoinPoint.proceed())
+                .willReturn(response());
+
+        //when
+        idempotencyAspect.aroundMethod(proceedingJoinPoint, BODY);
+
+        //then
+        //처리하는 동안 처리 중 표시를 연장하고, 응답을 저장하기 전에 멈춘다.
+        InOrder inOrder = inOrder(idempotencyStore, proceedingJoinPoint, renewal);
+        inOrder.verify(idempotencyStore, times(1)).keepInProgress(KEY, fingerprint(BODY));
+        inOrder.verify(proceedingJoinPoint, times(1)).proceed();
+        inOrder.verify(renewal, times(1)).cancel(false);
+        inOrder.verify(idempotencyStore, times(1)).complete(KEY, fingerprint(BODY), objectMapper.writeValueAsString(response()));
+    }
+
+    @Test
+    @DisplayName("같은 키의 재시도는 저장된 응답을 그대로 반환")
+    void retry() throws Throwable {
+        //given
+        request.addHeader(IdempotencyAspect.HEADER, "retry-1");
+        givenReturnType();
+        given(idempotencyStore.find(KEY))
+                .willReturn(new IdempotencyStore.Entry(fingerprint(BODY), objectMapper.writeValueAsString(response())));
+
+        //when
+        UseBalance.Response replayed = (UseBalance.Response) idempotencyAspect.aroundMethod(proceedingJoinPoint, BODY);
+
+        //then
+        verify(proceedingJoinPoint, times(0)).proceed();
+        assertEquals("ABCDEFGHJKMNP", replayed.getTransactionId());
+        assertEquals(1000L, replayed.getAmount());
+    }
+
+    @Test
+    @DisplayName("같은 키의 요청이 처리 중이면 실패")
+    void inProgress() throws Throwable {
+        //given
+        request.addHeader(IdempotencyAspect.HEADER, "retry-1");
+        givenReturnType();
+        given(idempotencyStore.find(KEY))
+                .willReturn(new IdempotencyStore.Entry(fingerprint(BODY), null));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint, BODY));
+
+        //then
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS, exception.getErrorCode());
+        verify(proceedingJoinPoint, times(0)).proceed();
+    }
+
+    @Test
+    @DisplayName("처리에 실패하면 키를 지워서 다시 시도할 수 있음")
+    void releaseOnFailure() throws Throwable {
+        //given
+        request.addHeader(IdempotencyAspect.HEADER, "retry-1");
+        givenReturnType();
+        given(idempotencyStore.find(KEY))
+                .willReturn(null);
+        given(idempotencyStore.reserve(KEY, fingerprint(BODY)))
+                .willReturn(true);
+        givenRenewal(KEY, fingerprint(BODY));
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCED_BALANCE));
+
+        //when
+        assertThrows(AccountException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint, BODY));
+
+        //then
+        verify(renewal, times(1)).cancel(false);
+        verify(idempotencyStore, times(1)).release(KEY);
+        verify(idempotencyStore, times(0)).complete(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("같은 키를 다른 내용의 요청에 쓰면 이전 응답을 돌려주지 않고 실패")
+    void reusedKeyWithDifferentBody() throws Throwable {
+        //given
+        request.addHeader(IdempotencyAspect.HEADER, "retry-1");
+        givenReturnType();
+        given(idempotencyStore.find(KEY))
+                .willReturn(new IdempotencyStore.Entry(fingerprint(new UseBalance.Request(12L, "1000000008", 5000L)),
+                        objectMapper.writeValueAsString(response())));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint, BODY));
+
+        //then
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, exception.getErrorCode());
+        verify(proceedingJoinPoint, times(0)).proceed();
+    }
+
+    @Test
+    @DisplayName("같은 키라도 계좌가 다르면 다른 요청")
+    void keyScopedByAccount() throws Throwable {
+        //given
+        request.addHeader(IdempotencyAspect.HEADER, "retry-1");
+        givenReturnType();
+        UseBalance.Request other = new UseBalance.Request(13L, "1000000016", 1000L);
+        given(idempotencyStore.find("/transaction/use:1000000016:retry-1"))
+                .willReturn(null);
+        given(idempotencyStore.reserve("/transaction/use:1000000016:retry-1", fingerprint(other)))
+                .willReturn(true);
+        givenRenewal("/transaction/use:1000000016:retry-1", fingerprint(other));
+        given(proceedingJoinPoint.proceed())
+                .willReturn(response());
+
+        //when
+        idempotencyAspect.aroundMethod(proceedingJoinPoint, other);
+
+        //then
+        verify(proceedingJoinPoint, times(1)).proceed();
+        verify(idempotencyStore, times(0)).find(KEY);
+    }
+
+    private String fingerprint(Object body) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(body));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    private void givenRenewal(String key, String fingerprint) {
+        willReturn(renewal).given(idempotencyStore).keepInProgress(key, fingerprint);
+    }
+
+    private void givenReturnType() {
+        given(proceedingJoinPoint.getSignature())
+                .willReturn(methodSignature);
+        given(methodSignature.getReturnType())
+                .willReturn(UseBalance.Response.class);
+    }
+
+    private UseBalance.Response response() {
+        return UseBalance.Response.builder()
+                .accountNumber("1000000008")
+                .transactionResult(S)
+                .transactionId("ABCDEFGHJKMNP")
+                .amount(1000L)
+                .transactedAt(LocalDateTime.of(2022, 6, 1, 23, 26, 14))
+                .build();
+    }
+}
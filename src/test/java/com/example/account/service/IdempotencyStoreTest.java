@@ -0,0 +1,67 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+
+import java.util.Collections;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyStoreTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RScript script;
+
+    private IdempotencyStore idempotencyStore;
+
+    @AfterEach
+    void tearDown() {
+        if (idempotencyStore != null) {
+            idempotencyStore.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("처리가 처리 중 표시의 TTL보다 길어지면 끝날 때까지 연장")
+    void renewWhileProcessingOutlivesTtl() throws Exception {
+        //given
+        idempotencyStore = new IdempotencyStore(redissonClient, 3600L, 1L);
+        given(redissonClient.getScript(any()))
+                .willReturn(script);
+
+        //when
+        ScheduledFuture<?> renewal = idempotencyStore.keepInProgress("/transaction/use:1000000008:retry-1", "fingerprint");
+
+        //then
+        //TTL 1초 동안 1/3초마다 연장, 처리가 TTL을 넘겨도 표시가 남는다.
+        verify(script, timeout(3000L).atLeast(4)).eval(eq(RScript.Mode.READ_WRITE), anyString(),
+                eq(RScript.ReturnType.INTEGER), eq(Collections.<Object>singletonList("IDEM:/transaction/use:1000000008:retry-1")),
+                eq("fingerprint"), eq("1000"));
+
+        //처리가 끝나서 멈추면 더 이상 연장하지 않는다.
+        renewal.cancel(false);
+        Thread.sleep(100L);
+        clearInvocations(script);
+        Thread.sleep(700L);
+        verify(script, never()).eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class),
+                any(), any(), any());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalAccountLockProviderTest {
+
+    @Test
+    @DisplayName("같은 계좌는 한 쓰레드만 처리")
+    void singleWriterPerAccount() throws Exception {
+        //given
+        LocalAccountLockProvider lockProvider = new LocalAccountLockProvider(16);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        long[] balance = {0L};
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        //when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(executorService.submit(() -> {
+                lockProvider.lock("1000000000", 5000L, -1L);
+                try {
+                    maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                    balance[0]++;
+                    inside.decrementAndGet();
+                } finally {
+                    lockProvider.unlock("1000000000");
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+
+        //then
+        assertEquals(1, maxInside.get());
+        assertEquals(1000L, balance[0]);
+    }
+
+    @Test
+    @DisplayName("다른 쓰레드가 락을 가지고 있음 - 락 획득 실패")
+    void failsGetLock() throws Exception {
+        //given
+        LocalAccountLockProvider lockProvider = new LocalAccountLockProvider(16);
+        Thread holder = new Thread(() -> lockProvider.lock("1000000000", 50L, -1L));
+        holder.start();
+        holder.join();
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockProvider.lock("1000000000", 50L, -1L));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("같은 쓰레드는 같은 mailbox를 다시 잡을 수 있음")
+    void reentrantForSameThread() {
+        //given
+        LocalAccountLockProvider lockProvider = new LocalAccountLockProvider(1);
+
+        //when
+        lockProvider.lock("1000000000", 50L, -1L);
+        assertDoesNotThrow(() -> lockProvider.lock("2000000000", 50L, -1L));
+        lockProvider.unlock("2000000000", 50L, -1L);
+        lockProvider.unlock("1000000000", 50L, -1L);
+
+        //then
+        assertDoesNotThrow(() -> lockProvider.lock("1000000000", 50L, -1L));
+        lockProvider.unlock("1000000000");
+    }
+}
@@ -1,19 +1,31 @@
 package com.example.account.service;
 
+import com.example.account.AOP.accountLock;
+import com.example.account.Dto.Transfer;
 import com.example.account.Dto.UseBalance;
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -22,12 +34,46 @@ class LockAopAspectTest {
     @Mock
     private LockService lockService;
 
+    @Mock
+    private AdmissionService admissionService;
+
+    @Mock
+    private FailedTransactionRecorder failedTransactionRecorder;
+
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
     @InjectMocks
     private LockAopAspect lockAopAspect;
 
+    private static final accountLock LOCK = annotation("useBalance");
+    private static final accountLock LEASED_LOCK = annotation("cancelBalance");
+
+    @accountLock(tryLockTime = 3000L)
+    private void useBalance() {
+    }
+
+    @accountLock(tryLockTime = 500L, leaseTime = 10000L)
+    private void cancelBalance() {
+    }
+
+    @Test
+    void lockWithAnnotationWaitAndLease() throws Throwable {
+
+        //given
+        UseBalance.Request request = new UseBalance.Request(123L,"1234",1000L);
+        given(lockService.Lock("1234", 500L, 10000L))
+                .willReturn(42L);
+
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, LEASED_LOCK, request);
+
+        //thten
+        verify(lockService, times(1)).Lock("1234", 500L, 10000L);
+        //이번 요청이 락을 잡은 시각으로 유지 시간을 기록한다.
+        verify(lockService, times(1)).unLock("1234", 42L);
+    }
+
     @Test
     void lockAndUnlockI() throws Throwable {
 
@@ -38,11 +84,11 @@ class LockAopAspectTest {
 
         //when
 
-        lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+        lockAopAspect.aroundMethod(proceedingJoinPoint, LOCK, request);
 
         //thten
-        verify(lockService, times(1)).Lock(lockArgumentCaptor.capture());
-        verify(lockService, times(1)).unLock(unLockArgumentCaptor.capture());
+        verify(lockService, times(1)).Lock(lockArgumentCaptor.capture(), eq(3000L), eq(-1L));
+        verify(lockService, times(1)).unLock(unLockArgumentCaptor.capture(), anyLong());
 
         assertEquals("1234", lockArgumentCaptor.getValue());
         assertEquals("1234", unLockArgumentCaptor.getValue());
@@ -62,14 +108,108 @@ class LockAopAspectTest {
 
 
         //when
-        assertThrows(AccountException.class, ()-> lockAopAspect.aroundMethod(proceedingJoinPoint, request));
+        assertThrows(AccountException.class, ()-> lockAopAspect.aroundMethod(proceedingJoinPoint, LOCK, request));
 
         //thten
-        verify(lockService, times(1)).Lock(lockArgumentCaptor.capture());
-        verify(lockService, times(1)).unLock(unLockArgumentCaptor.capture());
+        verify(lockService, times(1)).Lock(lockArgumentCaptor.capture(), eq(3000L), eq(-1L));
+        verify(lockService, times(1)).unLock(unLockArgumentCaptor.capture(), anyLong());
 
         assertEquals("54321", lockArgumentCaptor.getValue());
         assertEquals("54321", unLockArgumentCaptor.getValue());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void leaveAdmission_evenIf_lockFailed() throws Throwable {
+
+        //given
+        UseBalance.Request request = new UseBalance.Request(123L,"54321",1000L);
+
+        given(lockService.Lock(anyString(), anyLong(), anyLong()))
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+
+        //when
+        assertThrows(AccountException.class, ()-> lockAopAspect.aroundMethod(proceedingJoinPoint, LOCK, request));
+
+        //thten
+        InOrder inOrder = inOrder(admissionService, lockService);
+        inOrder.verify(admissionService, times(1)).enter("54321");
+        inOrder.verify(lockService, times(1)).Lock("54321", 3000L, -1L);
+        inOrder.verify(admissionService, times(1)).leave("54321");
+        verify(lockService, times(0)).unLock(anyString(), anyLong());
+        verify(proceedingJoinPoint, times(0)).proceed();
+
+    }
+
+    @Test
+    void transfer_lockAllAccounts() throws Throwable {
+
+        //given
+        Transfer.Request request = new Transfer.Request(123L, "2000000000", "1000000000", 1000L);
+        given(lockService.lockAll(Arrays.asList("2000000000", "1000000000"), 3000L, -1L))
+                .willReturn(42L);
+
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, LOCK, request);
+
+        //thten
+        InOrder inOrder = inOrder(admissionService, lockService, proceedingJoinPoint);
+        inOrder.verify(admissionService, times(1)).enter("2000000000");
+        inOrder.verify(lockService, times(1)).lockAll(Arrays.asList("2000000000", "1000000000"), 3000L, -1L);
+        inOrder.verify(proceedingJoinPoint, times(1)).proceed();
+        inOrder.verify(lockService, times(1)).unlockAll(Arrays.asList("2000000000", "1000000000"), 42L);
+        inOrder.verify(admissionService, times(1)).leave("2000000000");
+        verify(lockService, times(0)).Lock(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void optimistic_retryWithoutLock() throws Throwable {
+
+        //given
+        ReflectionTestUtils.setField(lockAopAspect, "optimistic", true);
+        UseBalance.Request request = new UseBalance.Request(123L,"54321",1000L);
+
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new OptimisticLockingFailureException("conflict"))
+                .willReturn("success");
+
+        //when
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint, LOCK, request);
+
+        //thten
+        assertEquals("success", result);
+        verify(proceedingJoinPoint, times(2)).proceed();
+        verify(failedTransactionRecorder, times(0)).record(any(), anyString(), anyLong());
+        verify(lockService, times(0)).Lock(anyString(), anyLong(), anyLong());
+        verify(admissionService, times(1)).leave("54321");
+    }
+
+    @Test
+    void optimistic_retryExhausted() throws Throwable {
+
+        //given
+        ReflectionTestUtils.setField(lockAopAspect, "optimistic", true);
+        UseBalance.Request request = new UseBalance.Request(123L,"54321",1000L);
+
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new OptimisticLockingFailureException("conflict"));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                ()-> lockAopAspect.aroundMethod(proceedingJoinPoint, LOCK, request));
+
+        //thten
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(proceedingJoinPoint, times(3)).proceed();
+        verify(failedTransactionRecorder, times(1)).record(TransactionType.USE, "54321", 1000L);
+        verify(admissionService, times(1)).leave("54321");
+    }
+
+    private static accountLock annotation(String methodName) {
+        try {
+            return LockAopAspectTest.class.getDeclaredMethod(methodName).getAnnotation(accountLock.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -4,58 +4,185 @@ import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.Mockito.when;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class LockServiceTest {
 
-
     @Mock
-    private RedissonClient redissonClient;
+    private AccountLockProvider accountLockProvider;
 
     @Mock
-    private RLock rLock;
+    private AccountMetrics accountMetrics;
 
     @InjectMocks
     private LockService lockService;
 
     @Test
-    void successGetLock() throws InterruptedException {
+    void successGetLock() {
+        //when
+        assertDoesNotThrow(()-> lockService.Lock("123"));
+
+        //then
+        verify(accountLockProvider, times(1)).lock("123", 5000L, LockService.WATCHDOG_LEASE);
+        verify(accountMetrics, times(1)).recordLockWait(anyLong(), eq(true));
+    }
+
+    @Test
+    void failsGetLock() {
         //given
-        given(redissonClient.getLock(anyString()))
-                .willReturn(rLock);
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(accountLockProvider).lock("1234", 5000L, LockService.WATCHDOG_LEASE);
+        given(accountLockProvider.keyPrefix())
+                .willReturn("ACLK");
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                ()-> lockService.Lock("1234"));
 
-        given(rLock.tryLock(anyLong(),anyLong(),any()))
-                .willReturn(true);
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(accountMetrics, times(1)).recordLockWait(anyLong(), eq(false));
+        verify(accountMetrics, times(1)).lockFailed("ACLK");
+    }
 
+    @Test
+    void lockWithWaitAndLease() {
         //when
-        assertDoesNotThrow(()-> lockService.Lock("123"));
+        lockService.Lock("123", 300L, 2000L);
+
+        //then
+        verify(accountLockProvider, times(1)).lock("123", 300L, 2000L);
     }
 
     @Test
-    void failsGetLock() throws InterruptedException {
+    void successUnLock() {
         //given
-        given(redissonClient.getLock(anyString()))
-                .willReturn(rLock);
+        long lockedAt = System.nanoTime();
 
-        given(rLock.tryLock(anyLong(),anyLong(),any()))
-                .willReturn(false);
+        //when
+        lockService.unLock("123", lockedAt);
+
+        //then
+        verify(accountLockProvider, times(1)).unlock("123");
+        verify(accountMetrics, times(1)).recordLockHold(anyLong());
+    }
+
+    @Test
+    void recordLockHold_perAcquisition() {
+        //given
+        //같은 계좌를 다시 잡아도(재진입, 재시도) 각자 잡은 시각으로 기록한다.
+        long first = lockService.Lock("123");
+        long second = lockService.Lock("123");
+
+        //when
+        lockService.unLock("123", second);
+        lockService.unLock("123", first);
+
+        //then
+        assertTrue(second >= first);
+        verify(accountMetrics, times(2)).recordLockHold(anyLong());
+        verify(accountLockProvider, times(2)).unlock("123");
+    }
+
+    @Test
+    void lockAll_inLockOrder() {
+        //given
+        given(accountLockProvider.lockOrder())
+                .willReturn(Comparator.naturalOrder());
+
+        //when
+        lockService.lockAll(Arrays.asList("2000000000", "1000000000"), 1000L, LockService.WATCHDOG_LEASE);
+
+        //then
+        InOrder inOrder = inOrder(accountLockProvider);
+        inOrder.verify(accountLockProvider, times(1)).lock(eq("1000000000"), anyLong(), eq(LockService.WATCHDOG_LEASE));
+        inOrder.verify(accountLockProvider, times(1)).lock(eq("2000000000"), anyLong(), eq(LockService.WATCHDOG_LEASE));
+    }
+
+    @Test
+    void lockAll_releaseAcquired_whenFailed() {
+        //given
+        given(accountLockProvider.lockOrder())
+                .willReturn(Comparator.naturalOrder());
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(accountLockProvider).lock(eq("2000000000"), anyLong(), anyLong());
+        given(accountLockProvider.keyPrefix())
+                .willReturn("ACLK");
 
         //when
         AccountException exception = assertThrows(AccountException.class,
-                ()-> lockService.Lock("1234"));
+                ()-> lockService.lockAll(Arrays.asList("2000000000", "1000000000"), 1000L, LockService.WATCHDOG_LEASE));
 
         //then
         assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(accountLockProvider, times(1)).unlock("1000000000");
+        verify(accountLockProvider, times(0)).unlock("2000000000");
+        verify(accountMetrics, times(0)).recordLockHold(anyLong());
+    }
+
+    @Test
+    void unlockAll_reverseOrder() {
+        //given
+        given(accountLockProvider.lockOrder())
+                .willReturn(Comparator.naturalOrder());
+
+        //when
+        lockService.unlockAll(Arrays.asList("1000000000", "2000000000"), System.nanoTime());
+
+        //then
+        InOrder inOrder = inOrder(accountLockProvider);
+        inOrder.verify(accountLockProvider, times(1)).unlock("2000000000");
+        inOrder.verify(accountLockProvider, times(1)).unlock("1000000000");
+        verify(accountMetrics, times(1)).recordLockHold(anyLong());
+    }
+
+    @Test
+    void lockAll_oppositeTransfers_noDeadlock() {
+        //given
+        LockService localLockService = new LockService(new LocalAccountLockProvider(1024), accountMetrics);
+        List<String> aToB = Arrays.asList("1000000000", "2000000000");
+        List<String> bToA = Arrays.asList("2000000000", "1000000000");
+
+        //when
+        //then
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            ExecutorService executorService = Executors.newFixedThreadPool(2);
+            try {
+                Future<?> first = executorService.submit(() -> transferLocks(localLockService, aToB));
+                Future<?> second = executorService.submit(() -> transferLocks(localLockService, bToA));
+                first.get();
+                second.get();
+            } finally {
+                executorService.shutdownNow();
+            }
+        });
+    }
+
+    private static void transferLocks(LockService lockService, List<String> accountNumbers) {
+        for (int i = 0; i < 10_000; i++) {
+            long lockedAt = lockService.lockAll(accountNumbers, 5000L, LockService.WATCHDOG_LEASE);
+            lockService.unlockAll(accountNumbers, lockedAt);
+        }
     }
-}
\ No newline at end of file
+}
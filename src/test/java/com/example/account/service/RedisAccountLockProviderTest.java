@@ -0,0 +1,112 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RedisAccountLockProviderTest {
+
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock rLock;
+
+    @InjectMocks
+    private RedisAccountLockProvider redisAccountLockProvider;
+
+    @Test
+    void successGetLock() throws InterruptedException {
+        //given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+
+        given(rLock.tryLock(anyLong(),anyLong(),any()))
+                .willReturn(true);
+
+        //when
+        assertDoesNotThrow(()-> redisAccountLockProvider.lock("123", 1000L, -1L));
+    }
+
+    @Test
+    void failsGetLock() throws InterruptedException {
+        //given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+
+        given(rLock.tryLock(anyLong(),anyLong(),any()))
+                .willReturn(false);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                ()-> redisAccountLockProvider.lock("1234", 1000L, -1L));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+
+    @Test
+    void lockWithWatchdog() throws InterruptedException {
+        //given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(),anyLong(),any()))
+                .willReturn(true);
+
+        //when
+        redisAccountLockProvider.lock("123", 3000L, -1L);
+
+        //then
+        //lease를 -1로 넘겨야 Redisson watchdog이 연장한다.
+        verify(rLock, times(1)).tryLock(3000L, -1L, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void failsGetLock_redisDown() throws InterruptedException {
+        //given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(),anyLong(),any()))
+                .willThrow(new RedisException("connection refused"));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                ()-> redisAccountLockProvider.lock("1234", 1000L, -1L));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+
+    @Test
+    void unlockAfterLeaseExpired() {
+        //given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        willThrow(new IllegalMonitorStateException())
+                .given(rLock).unlock();
+
+        //when
+        //then
+        assertDoesNotThrow(()-> redisAccountLockProvider.unlock("1234"));
+    }
+}
\ No newline at end of file
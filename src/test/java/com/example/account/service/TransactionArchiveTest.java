@@ -0,0 +1,134 @@
+package com.example.account.service;
+
+import com.example.account.Dto.TransactionView;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionArchiveTest {
+    private static final YearMonth MONTH = YearMonth.of(2021, 5);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("block 단위로 압축하고 다시 시작해도 index로 조회")
+    void findAfterReload() throws Exception {
+        //given
+        TransactionArchive archive = new TransactionArchive(directory.toString(), 3);
+        try (TransactionArchive.ArchiveWriter writer = archive.open(MONTH)) {
+            for (long id = 10; id < 20; id++) {
+                writer.append(view(id * 2));
+            }
+            assertTrue(writer.commit());
+        }
+
+        //when
+        TransactionArchive reloaded = new TransactionArchive(directory.toString(), 3);
+        Optional<TransactionView> found = reloaded.find(26L);
+
+        //then
+        assertTrue(reloaded.contains(MONTH));
+        assertArrayEquals(new long[]{20L, 38L}, reloaded.transactionIdRange(MONTH));
+        assertTrue(found.isPresent());
+        assertEquals("1000000012", found.get().getAccountNumber());
+        assertEquals(12L, found.get().getOwnerId());
+        assertEquals(LocalDateTime.of(2021, 5, 1, 0, 0).plusSeconds(26), found.get().getTransactedAt());
+        assertTrue(reloaded.find(38L).isPresent());
+        //block 사이의 빈 번호, 범위 밖의 번호
+        assertFalse(reloaded.find(27L).isPresent());
+        assertFalse(reloaded.find(40L).isPresent());
+        //index 4줄 (3, 3, 3, 1건)
+        assertEquals(4, Files.readAllLines(directory.resolve("transactions-2021-05.idx")).size());
+    }
+
+    @Test
+    @DisplayName("commit 하지 않으면 파일을 남기지 않음")
+    void discardWithoutCommit() throws Exception {
+        //given
+        TransactionArchive archive = new TransactionArchive(directory.toString(), 3);
+
+        //when
+        try (TransactionArchive.ArchiveWriter writer = archive.open(MONTH)) {
+            writer.append(view(20L));
+        }
+
+        //then
+        assertFalse(archive.contains(MONTH));
+        assertFalse(archive.find(20L).isPresent());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("거래번호 순서가 아니면 쓰지 않음")
+    void appendOutOfOrder() throws Exception {
+        //given
+        TransactionArchive archive = new TransactionArchive(directory.toString(), 3);
+
+        //when
+        //then
+        try (TransactionArchive.ArchiveWriter writer = archive.open(MONTH)) {
+            writer.append(view(20L));
+            assertThrows(IllegalStateException.class, () -> writer.append(view(20L)));
+        }
+    }
+
+    @Test
+    @DisplayName("다른 노드가 새로 옮긴 달도 조회가 실패하면 다시 읽어서 찾음")
+    void findMonthArchivedByAnotherNode() throws Exception {
+        //given
+        TransactionArchive reader = new TransactionArchive(directory.toString(), 3, 0L);
+        TransactionArchive writerNode = new TransactionArchive(directory.toString(), 3, 0L);
+        try (TransactionArchive.ArchiveWriter writer = writerNode.open(MONTH)) {
+            writer.append(view(20L));
+            assertTrue(writer.commit());
+        }
+
+        //when
+        Optional<TransactionView> found = reader.find(20L);
+
+        //then
+        assertTrue(found.isPresent());
+        assertTrue(reader.contains(MONTH));
+    }
+
+    @Test
+    @DisplayName("다시 시작해도 다른 노드가 쓰는 임시 파일은 지우지 않고, 오래된 것만 정리")
+    void keepTemporaryFilesOfOtherNodes() throws Exception {
+        //given
+        Path writing = Files.createFile(directory.resolve("transactions-2021-06.tsv.gz.tmp"));
+        Path abandoned = Files.createFile(directory.resolve("transactions-2021-04.tsv.gz.tmp"));
+        Files.setLastModifiedTime(abandoned, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        //when
+        TransactionArchive archive = new TransactionArchive(directory.toString(), 3);
+        boolean keptOnStart = Files.exists(writing) && Files.exists(abandoned);
+        archive.cleanUp(Duration.ofHours(1));
+
+        //then
+        assertTrue(keptOnStart);
+        assertTrue(Files.exists(writing));
+        assertFalse(Files.exists(abandoned));
+    }
+
+    private TransactionView view(long transactionId) {
+        return new TransactionView("1000000012", 12L, USE, S, 1000L, 9000L, transactionId,
+                LocalDateTime.of(2021, 5, 1, 0, 0).plusSeconds(transactionId));
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.account.service;
+
+import com.example.account.Dto.TransactionView;
+import com.example.account.repository.TransactionArchiveRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionArchiverTest {
+    private static final LocalDateTime MAY = LocalDateTime.of(2021, 5, 1, 0, 0);
+    private static final LocalDateTime JUNE = LocalDateTime.of(2021, 6, 1, 0, 0);
+
+    @Mock
+    private TransactionArchiveRepository transactionArchiveRepository;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock lock;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("1년이 지난 달만 archive에 쓴 뒤 그 거래번호 범위만 삭제")
+    void archiveExpiredMonth() throws Exception {
+        //given
+        TransactionArchive archive = new TransactionArchive(directory.toString(), 1024);
+        TransactionArchiver archiver = new TransactionArchiver(transactionArchiveRepository, archive, redissonClient);
+        given(transactionArchiveRepository.findOldestTransactedAt())
+                .willReturn(Optional.of(MAY.plusDays(3)));
+        willAnswer(invocation -> {
+            Consumer<TransactionView> consumer = invocation.getArgument(2);
+            consumer.accept(view(100L, MAY.plusDays(3)));
+            consumer.accept(view(200L, MAY.plusDays(10)));
+            return null;
+        }).given(transactionArchiveRepository).stream(eq(MAY), eq(JUNE), any());
+        given(transactionArchiveRepository.delete(MAY, JUNE, 100L, 200L))
+                .willReturn(2);
+
+        //when
+        //6월은 아직 1년이 지나지 않은 날이 있으므로 남긴다.
+        archiver.archiveBefore(LocalDateTime.of(2021, 6, 15, 0, 0));
+
+        //then
+        assertTrue(archive.contains(YearMonth.of(2021, 5)));
+        assertFalse(archive.contains(YearMonth.of(2021, 6)));
+        assertTrue(archive.find(200L).isPresent());
+        verify(transactionArchiveRepository, times(1)).delete(MAY, JUNE, 100L, 200L);
+    }
+
+    @Test
+    @DisplayName("삭제는 archive block의 거래번호 범위씩 나눠서")
+    void deleteByBlock() throws Exception {
+        //given
+        TransactionArchive archive = new TransactionArchive(directory.toString(), 2);
+        TransactionArchiver archiver = new TransactionArchiver(transactionArchiveRepository, archive, redissonClient);
+        given(transactionArchiveRepository.findOldestTransactedAt())
+                .willReturn(Optional.of(MAY.plusDays(3)));
+        willAnswer(invocation -> {
+            Consumer<TransactionView> consumer = invocation.getArgument(2);
+            consumer.accept(view(100L, MAY.plusDays(3)));
+            consumer.accept(view(200L, MAY.plusDays(10)));
+            consumer.accept(view(300L, MAY.plusDays(20)));
+            return null;
+        }).given(transactionArchiveRepository).stream(eq(MAY), eq(JUNE), any());
+        given(transactionArchiveRepository.delete(MAY, JUNE, 100L, 200L))
+                .willReturn(2);
+        given(transactionArchiveRepository.delete(MAY, JUNE, 300L, 300L))
+                .willReturn(1);
+
+        //when
+        archiver.archiveBefore(LocalDateTime.of(2021, 6, 15, 0, 0));
+
+        //then
+        verify(transactionArchiveRepository, times(1)).delete(MAY, JUNE, 100L, 200L);
+        verify(transactionArchiveRepository, times(1)).delete(MAY, JUNE, 300L, 300L);
+        verify(transactionArchiveRepository, times(2)).delete(any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("다른 노드가 락을 잡고 있으면 옮기지 않음")
+    void lockedByAnotherNode() throws Exception {
+        //given
+        TransactionArchiver archiver = new TransactionArchiver(transactionArchiveRepository,
+                new TransactionArchive(directory.toString(), 1024), redissonClient);
+        given(redissonClient.getLock(anyString()))
+                .willReturn(lock);
+        given(lock.tryLock(0L, -1L, TimeUnit.MILLISECONDS))
+                .willReturn(false);
+
+        //when
+        archiver.archiveExpired();
+
+        //then
+        verify(transactionArchiveRepository, times(0)).findOldestTransactedAt();
+        verify(lock, times(0)).unlock();
+    }
+
+    @Test
+    @DisplayName("락을 잡은 노드는 옮긴 뒤 락을 푼다")
+    void archiveWithLock() throws Exception {
+        //given
+        TransactionArchiver archiver = new TransactionArchiver(transactionArchiveRepository,
+                new TransactionArchive(directory.toString(), 1024), redissonClient);
+        given(redissonClient.getLock(anyString()))
+                .willReturn(lock);
+        given(lock.tryLock(0L, -1L, TimeUnit.MILLISECONDS))
+                .willReturn(true);
+        given(transactionArchiveRepository.findOldestTransactedAt())
+                .willReturn(Optional.empty());
+
+        //when
+        archiver.archiveExpired();
+
+        //then
+        verify(transactionArchiveRepository, times(1)).findOldestTransactedAt();
+        verify(lock, times(1)).unlock();
+    }
+
+    @Test
+    @DisplayName("이미 archive에 있는 달은 다시 쓰지 않고 삭제만")
+    void resumeAfterCommit() throws Exception {
+        //given
+        TransactionArchive archive = new TransactionArchive(directory.toString(), 1024);
+        try (TransactionArchive.ArchiveWriter writer = archive.open(YearMonth.of(2021, 5))) {
+            writer.append(view(100L, MAY.plusDays(3)));
+            writer.commit();
+        }
+        TransactionArchiver archiver = new TransactionArchiver(transactionArchiveRepository, archive, redissonClient);
+        given(transactionArchiveRepository.findOldestTransactedAt())
+                .willReturn(Optional.of(MAY.plusDays(3)));
+
+        //when
+        archiver.archiveBefore(LocalDateTime.of(2021, 6, 15, 0, 0));
+
+        //then
+        verify(transactionArchiveRepository, times(0)).stream(any(), any(), any());
+        verify(transactionArchiveRepository, times(1)).delete(MAY, JUNE, 100L, 100L);
+    }
+
+    @Test
+    @DisplayName("옮길 달이 없으면 아무것도 하지 않음")
+    void nothingToArchive() throws Exception {
+        //given
+        TransactionArchiver archiver = new TransactionArchiver(transactionArchiveRepository,
+                new TransactionArchive(directory.toString(), 1024), redissonClient);
+        given(transactionArchiveRepository.findOldestTransactedAt())
+                .willReturn(Optional.of(JUNE));
+
+        //when
+        archiver.archiveBefore(LocalDateTime.of(2021, 6, 15, 0, 0));
+
+        //then
+        verify(transactionArchiveRepository, times(0)).delete(any(), any(), anyLong(), anyLong());
+    }
+
+    private TransactionView view(long transactionId, LocalDateTime transactedAt) {
+        return new TransactionView("1000000012", 12L, USE, S, 1000L, 9000L, transactionId, transactedAt);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.account.service;
+
+import com.example.account.Dto.UseBalance;
+import com.example.account.Dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionBatchServiceTest {
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private AdmissionService admissionService;
+
+    @Mock
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @InjectMocks
+    private TransactionBatchService transactionBatchService;
+
+    @Test
+    @DisplayName("계좌마다 락은 한 번만 잡고 결과는 요청 순서대로")
+    void useBalanceGroupedByAccount() {
+        //given
+        List<UseBalance.Request> requests = Arrays.asList(
+                new UseBalance.Request(1L, "1000000000", 100L),
+                new UseBalance.Request(2L, "2000000000", 200L),
+                new UseBalance.Request(1L, "1000000000", 300L));
+        given(transactionService.useBalanceBatch(eq("1000000000"), anyList()))
+                .willAnswer(invocation -> success(invocation.getArgument(1)));
+        given(transactionService.useBalanceBatch(eq("2000000000"), anyList()))
+                .willAnswer(invocation -> success(invocation.getArgument(1)));
+
+        //when
+        List<UseBalanceBatch.Result> results = transactionBatchService.useBalance(requests);
+
+        //then
+        verify(lockService, times(1)).Lock("1000000000");
+        verify(lockService, times(1)).unLock(eq("1000000000"), anyLong());
+        verify(lockService, times(1)).Lock("2000000000");
+        verify(lockService, times(1)).unLock(eq("2000000000"), anyLong());
+        verify(admissionService, times(1)).enter("1000000000");
+        verify(admissionService, times(1)).leave("1000000000");
+        assertEquals(Arrays.asList(100L, 200L, 300L),
+                results.stream().map(UseBalanceBatch.Result::getAmount).collect(Collectors.toList()));
+        assertEquals("2000000000", results.get(1).getAccountNumber());
+    }
+
+    @Test
+    @DisplayName("락을 잡지 못한 계좌의 요청만 실패")
+    void useBalance_lockFailed() {
+        //given
+        List<UseBalance.Request> requests = Arrays.asList(
+                new UseBalance.Request(1L, "1000000000", 100L),
+                new UseBalance.Request(2L, "2000000000", 200L));
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).Lock("1000000000");
+        given(transactionService.useBalanceBatch(eq("2000000000"), anyList()))
+                .willAnswer(invocation -> success(invocation.getArgument(1)));
+
+        //when
+        List<UseBalanceBatch.Result> results = transactionBatchService.useBalance(requests);
+
+        //then
+        verify(lockService, never()).unLock(eq("1000000000"), anyLong());
+        verify(admissionService, times(1)).leave("1000000000");
+        verify(failedTransactionRecorder, times(1)).record(TransactionType.USE, "1000000000", 100L);
+        verify(failedTransactionRecorder, never()).record(TransactionType.USE, "2000000000", 200L);
+        assertEquals(TransactionResultType.F, results.get(0).getTransactionResult());
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, results.get(0).getErrorCode());
+        assertEquals(TransactionResultType.S, results.get(1).getTransactionResult());
+        assertNull(results.get(1).getErrorCode());
+    }
+
+    @Test
+    @DisplayName("대기열이 가득 차면 락을 잡지 않음")
+    void useBalance_queueFull() {
+        //given
+        List<UseBalance.Request> requests = Collections.singletonList(
+                new UseBalance.Request(1L, "1000000000", 100L));
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_QUEUE_FULL))
+                .given(admissionService).enter("1000000000");
+
+        //when
+        List<UseBalanceBatch.Result> results = transactionBatchService.useBalance(requests);
+
+        //then
+        verify(lockService, never()).Lock("1000000000");
+        verify(admissionService, never()).leave("1000000000");
+        verify(failedTransactionRecorder, times(1)).record(TransactionType.USE, "1000000000", 100L);
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_QUEUE_FULL, results.get(0).getErrorCode());
+    }
+
+    @Test
+    @DisplayName("낙관적 락 충돌은 해당 계좌 묶음만 실패")
+    void useBalance_optimisticLockFailed() {
+        //given
+        List<UseBalance.Request> requests = Arrays.asList(
+                new UseBalance.Request(1L, "1000000000", 100L),
+                new UseBalance.Request(1L, "1000000000", 300L),
+                new UseBalance.Request(2L, "2000000000", 200L));
+        given(transactionService.useBalanceBatch(eq("1000000000"), anyList()))
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L));
+        given(transactionService.useBalanceBatch(eq("2000000000"), anyList()))
+                .willAnswer(invocation -> success(invocation.getArgument(1)));
+
+        //when
+        List<UseBalanceBatch.Result> results = transactionBatchService.useBalance(requests);
+
+        //then
+        verify(lockService, times(1)).unLock(eq("1000000000"), anyLong());
+        verify(failedTransactionRecorder, times(1)).record(TransactionType.USE, "1000000000", 100L);
+        verify(failedTransactionRecorder, times(1)).record(TransactionType.USE, "1000000000", 300L);
+        assertEquals(ErrorCode.ACCOUNT_CONCURRENT_UPDATE, results.get(0).getErrorCode());
+        assertEquals(ErrorCode.ACCOUNT_CONCURRENT_UPDATE, results.get(1).getErrorCode());
+        assertEquals(TransactionResultType.S, results.get(2).getTransactionResult());
+    }
+
+    @Test
+    @DisplayName("DB 오류도 해당 계좌 묶음만 실패")
+    void useBalance_dataAccessFailed() {
+        //given
+        List<UseBalance.Request> requests = Arrays.asList(
+                new UseBalance.Request(1L, "1000000000", 100L),
+                new UseBalance.Request(2L, "2000000000", 200L));
+        given(transactionService.useBalanceBatch(eq("1000000000"), anyList()))
+                .willAnswer(invocation -> success(invocation.getArgument(1)));
+        given(transactionService.useBalanceBatch(eq("2000000000"), anyList()))
+                .willThrow(new QueryTimeoutException("timeout"));
+
+        //when
+        List<UseBalanceBatch.Result> results = transactionBatchService.useBalance(requests);
+
+        //then
+        verify(lockService, times(1)).unLock(eq("2000000000"), anyLong());
+        verify(admissionService, times(1)).leave("2000000000");
+        verify(failedTransactionRecorder, times(1)).record(TransactionType.USE, "2000000000", 200L);
+        assertEquals(TransactionResultType.S, results.get(0).getTransactionResult());
+        assertEquals(TransactionResultType.F, results.get(1).getTransactionResult());
+        assertEquals(ErrorCode.INTERNAL_SERVER_ERROR, results.get(1).getErrorCode());
+    }
+
+    private static List<UseBalanceBatch.Result> success(List<UseBalance.Request> requests) {
+        return requests.stream()
+                .map(request -> UseBalanceBatch.Result.builder()
+                        .accountNumber(request.getAccountNumber())
+                        .transactionResult(TransactionResultType.S)
+                        .amount(request.getAmount())
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.account.service;
+
+import com.example.account.Dto.AccountOwnership;
+import com.example.account.Dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.TransactionExportRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.ExportFormat;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+    private static final LocalDateTime FROM = LocalDateTime.of(2022, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2022, 2, 1, 0, 0);
+
+    @Mock
+    private TransactionExportRepository transactionExportRepository;
+    @Mock
+    private AccountOwnershipCache accountOwnershipCache;
+
+    private TransactionExportService transactionExportService;
+
+    @BeforeEach
+    void setUp() {
+        transactionExportService = new TransactionExportService(transactionExportRepository,
+                accountOwnershipCache, Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build());
+    }
+
+    @Test
+    @DisplayName("CSV - 헤더 다음에 한 행씩")
+    void exportCsv() throws Exception {
+        //given
+        given(accountOwnershipCache.get("1000000000"))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        givenRows(2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        transactionExportService.export("1000000000", FROM, TO, ExportFormat.CSV)
+                .writeTo(out);
+
+        //then
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("transactionId,accountNumber"));
+        assertEquals("T0,1000000000,USE,S,1000,9000,2022-01-01T10:00:00", lines[1]);
+        verify(transactionExportRepository, times(1)).export(eq(1L), eq(FROM), eq(TO), any());
+    }
+
+    @Test
+    @DisplayName("NDJSON - 계좌를 지정하지 않으면 전체 계좌")
+    void exportNdjson() throws Exception {
+        //given
+        givenRows(3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        transactionExportService.export(null, FROM, TO, ExportFormat.NDJSON)
+                .writeTo(out);
+
+        //then
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[2].contains("\"transactionId\":\"T2\""));
+        assertTrue(lines[2].contains("\"transactedAt\":\"2022-01-01T10:00:00\""));
+        verify(accountOwnershipCache, times(0)).get(any());
+        verify(transactionExportRepository, times(1)).export(isNull(), eq(FROM), eq(TO), any());
+    }
+
+    @Test
+    @DisplayName("CSV - 쉼표, 따옴표, 줄바꿈이 있는 값만 따옴표로 감쌈")
+    void csvQuote() {
+        assertEquals("1000000000", TransactionExportService.csv("1000000000"));
+        assertEquals("\"10,00\"", TransactionExportService.csv("10,00"));
+        assertEquals("\"a\"\"b\"", TransactionExportService.csv("a\"b"));
+        assertEquals("\"a\nb\"", TransactionExportService.csv("a\nb"));
+        assertEquals("", TransactionExportService.csv(null));
+    }
+
+    @Test
+    @DisplayName("기간이 잘못됨 - 조회하지 않음")
+    void exportInvalidRange() {
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionExportService.export(null, TO, FROM, ExportFormat.CSV));
+
+        //then
+        assertEquals(ErrorCode.INVALID_EXPORT_RANGE, exception.getErrorCode());
+        verify(transactionExportRepository, times(0)).export(any(), any(), any(), any());
+    }
+
+    private void givenRows(int count) {
+        willAnswer(invocation -> {
+            Consumer<TransactionDto> consumer = invocation.getArgument(3);
+            for (int i = 0; i < count; i++) {
+                consumer.accept(TransactionDto.builder()
+                        .transactionId("T" + i)
+                        .accountNumber("1000000000")
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .amount(1000L)
+                        .balanceSnapshot(9000L)
+                        .transactedAt(LocalDateTime.of(2022, 1, 1, 10, 0))
+                        .build());
+            }
+            return null;
+        }).given(transactionExportRepository).export(any(), eq(FROM), eq(TO), any());
+    }
+}
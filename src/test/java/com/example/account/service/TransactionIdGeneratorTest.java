@@ -0,0 +1,75 @@
+package com.example.account.service;
+
+import com.example.account.domain.TransactionIdCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionIdGeneratorTest {
+
+    @Test
+    @DisplayName("거래번호는 계속 증가하고 문자열 순서도 같음")
+    void monotonicIds() {
+        //given
+        TransactionIdGenerator generator = new TransactionIdGenerator(3L);
+        long previous = generator.nextId();
+
+        //when
+        //then
+        for (int i = 0; i < 100_000; i++) {
+            long next = generator.nextId();
+            assertTrue(next > previous);
+            assertTrue(TransactionIdCodec.encode(next).compareTo(TransactionIdCodec.encode(previous)) > 0);
+            assertEquals(3L, (next >>> 12) & 1023);
+            previous = next;
+        }
+    }
+
+    @Test
+    @DisplayName("여러 쓰레드에서 발급해도 중복 없음")
+    void uniqueIds() throws Exception {
+        //given
+        TransactionIdGenerator generator = new TransactionIdGenerator(0L);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        //when
+        for (int i = 0; i < 8; i++) {
+            executorService.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        executorService.shutdown();
+
+        //then
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(80_000, ids.size());
+    }
+
+    @Test
+    @DisplayName("문자열로 바꿨다가 다시 읽으면 같은 값")
+    void encodeAndDecode() {
+        long id = new TransactionIdGenerator(0L).nextId();
+
+        assertEquals(13, TransactionIdCodec.encode(id).length());
+        assertEquals(id, TransactionIdCodec.decode(TransactionIdCodec.encode(id)));
+        assertEquals(id, TransactionIdCodec.decode(TransactionIdCodec.encode(id).toLowerCase()));
+        assertEquals(Long.MAX_VALUE, TransactionIdCodec.decode(TransactionIdCodec.encode(Long.MAX_VALUE)));
+        assertThrows(IllegalArgumentException.class, () -> TransactionIdCodec.decode("transactionId"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionIdCodec.decode("c2033bb6d82a4250aecf8e27c49b63f6"));
+    }
+
+    @Test
+    void invalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new TransactionIdGenerator(1024L));
+    }
+}
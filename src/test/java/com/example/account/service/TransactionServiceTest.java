@@ -1,9 +1,18 @@
 package com.example.account.service;
 
+import com.example.account.Dto.AccountOwnership;
+import com.example.account.Dto.TransactionCursor;
 import com.example.account.Dto.TransactionDto;
+import com.example.account.Dto.TransactionHistory;
+import com.example.account.Dto.TransactionHistoryItem;
+import com.example.account.Dto.TransactionView;
+import com.example.account.Dto.TransferDto;
+import com.example.account.Dto.UseBalance;
+import com.example.account.Dto.UseBalanceBatch;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIdCodec;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
@@ -19,8 +28,15 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static com.example.account.type.AccountStatus.*;
@@ -29,6 +45,7 @@ import static com.example.account.type.TransactionType.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -40,10 +57,24 @@ class TransactionServiceTest {
     private AccountRepository accountRepository;
     @Mock
     private AccountUserRepository accountUserRepository;
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+    @Mock
+    private AccountOwnershipCache accountOwnershipCache;
+    @Mock
+    private AccountSnapshotCache accountSnapshotCache;
+    @Mock
+    private FailedTransactionRecorder failedTransactionRecorder;
+    @Mock
+    private AccountMetrics accountMetrics;
+    @Mock
+    private TransactionArchive transactionArchive;
 
     @InjectMocks
     private  TransactionService transactionService;
 
+    private static final String TRANSACTION_ID = TransactionIdCodec.encode(1234L);
+
 
     @Test
     void successUseBalance(){
@@ -60,8 +91,8 @@ class TransactionServiceTest {
                 .balance(10000L)
                 .build();
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
 
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -76,7 +107,7 @@ class TransactionServiceTest {
                         .account(account)
                         .transactionType(USE)
                         .transactionResultType(S)
-                        .transactionId("transactionId")
+                        .transactionId(1234L)
                         .amount(1000L)
                         .transactedAt(LocalDateTime.now())
                         .balanceSnapshot(9000L)
@@ -84,9 +115,10 @@ class TransactionServiceTest {
 
         ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
         //when
-        TransactionDto transactionDto =  transactionService.useBalance(1L,"1000000000", 200L);
+        TransactionDto transactionDto =  transactionService.useBalance(12L,"1000000000", 200L);
 
         //then
+        verify(accountUserRepository, times(0)).findById(anyLong());
         verify(transactionRepository, times(1)).save(captor.capture());
         assertEquals(200L, captor.getValue().getAmount());
         assertEquals(9800L, captor.getValue().getBalanceSnapshot());
@@ -97,6 +129,173 @@ class TransactionServiceTest {
 
     }
 
+    @Test
+    @DisplayName("저장 시간은 커밋이 끝난 뒤에 기록")
+    void useBalance_recordSaveAfterCommit(){
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountNumber("1000000000")
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .build();
+
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            //when
+            transactionService.useBalance(12L, "1000000000", 200L);
+
+            //then
+            verify(accountMetrics, never()).recordUseBalance(anyLong(), anyLong());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+            verify(accountMetrics, times(1)).recordUseBalance(anyLong(), anyLong());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("낙관적 모드 - version 조건부 update로 차감")
+    void successUseBalance_optimistic(){
+        //given
+        ReflectionTestUtils.setField(transactionService, "optimistic", true);
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountNumber("1000000000")
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .version(3L)
+                .build();
+        account.setId(1L);
+
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(accountRepository.debitIfUnchanged(1L, 3L, 200L))
+                .willReturn(1);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000000", 200L);
+
+        //then
+        assertEquals(9800L, transactionDto.getBalanceSnapshot());
+        assertEquals(4L, account.getVersion());
+    }
+
+    @Test
+    @DisplayName("낙관적 모드 - 읽은 뒤에 다른 거래가 반영되면 충돌")
+    void useBalance_optimisticConflict(){
+        //given
+        ReflectionTestUtils.setField(transactionService, "optimistic", true);
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountNumber("1000000000")
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .version(3L)
+                .build();
+        account.setId(1L);
+
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(accountRepository.debitIfUnchanged(1L, 3L, 200L))
+                .willReturn(0);
+
+        //when
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                ()-> transactionService.useBalance(12L, "1000000000", 200L));
+
+        //then
+        verify(transactionRepository, times(0)).save(any());
+        assertEquals(10000L, account.getBalance());
+    }
+
+    @Test
+    @DisplayName("한 문장 update - 계좌를 읽지 않고 바뀐 잔액으로 거래 기록")
+    void successUseBalance_atomic(){
+        //given
+        ReflectionTestUtils.setField(transactionService, "atomic", true);
+        Account account = Account.builder()
+                .accountNumber("1000000000")
+                .build();
+
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        given(accountRepository.debitAndGetBalance(1L, 200L))
+                .willReturn(Optional.of(9800L));
+        given(accountRepository.getReferenceById(1L))
+                .willReturn(account);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        //when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000000", 200L);
+
+        //then
+        verify(transactionRepository, times(1)).save(captor.capture());
+        verify(accountRepository, times(0)).findByAccountNumber(anyString());
+        assertEquals(9800L, captor.getValue().getBalanceSnapshot());
+        assertEquals(S, transactionDto.getTransactionResultType());
+        assertEquals("1000000000", transactionDto.getAccountNumber());
+        assertEquals(9800L, transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("한 문장 update - 잔액 부족이면 반영되지 않음")
+    void useBalance_atomicAmountExceed(){
+        //given
+        ReflectionTestUtils.setField(transactionService, "atomic", true);
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountNumber("1000000000")
+                .balance(100L)
+                .build();
+
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        given(accountRepository.debitAndGetBalance(1L, 200L))
+                .willReturn(Optional.empty());
+        given(accountRepository.findById(1L))
+                .willReturn(Optional.of(account));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                ()-> transactionService.useBalance(12L, "1000000000", 200L));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCED_BALANCE, exception.getErrorCode());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
     @Test
     @DisplayName("해당 유저 없음 - 계좌 해지 실패")
     void deleteAccount_UserNotFound(){
@@ -106,8 +305,10 @@ class TransactionServiceTest {
         user.setId(12L);
 
         //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.empty());
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(false);
 
         //when
         AccountException exception = assertThrows(AccountException.class,
@@ -127,11 +328,8 @@ class TransactionServiceTest {
         user.setId(12L);
 
         //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.empty());
+        given(accountOwnershipCache.get(anyString()))
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT));
 
         //when
         AccountException exception = assertThrows(AccountException.class,
@@ -156,19 +354,14 @@ class TransactionServiceTest {
 
         otherUser.setId(13L);
         //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(Account.builder()
-                        .accountUser(otherUser)
-                        .balance(0L)
-                        .accountNumber("1234567890")
-                        .build()));
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, otherUser.getId(), IN_USE));
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(true);
 
         //when
         AccountException exception = assertThrows(AccountException.class,
-                ()-> transactionService.useBalance(1L, "1234567890", 100L));
+                ()-> transactionService.useBalance(12L, "1234567890", 100L));
 
         //then
         assertEquals(ErrorCode.USER_ACCOUNT_UNMATCH, exception.getErrorCode());
@@ -190,15 +383,15 @@ class TransactionServiceTest {
                 .balance(100L)
                 .build();
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
 
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(account));
 
        //when
         AccountException exception = assertThrows(AccountException.class,
-                ()-> transactionService.useBalance(1L, "1234567890",200L));
+                ()-> transactionService.useBalance(12L, "1234567890",200L));
         //then
         assertEquals(ErrorCode.AMOUNT_EXCED_BALANCE, exception.getErrorCode());
         verify(transactionRepository, times(0)).save(any());
@@ -215,64 +408,169 @@ class TransactionServiceTest {
         user.setId(12L);
 
         //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(Account.builder()
-                        .accountUser(user)
-                        .balance(100L)
-                        .accountStatus(UNREGISTERED)
-                        .accountNumber("1234567890")
-                        .build()));
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, user.getId(), UNREGISTERED));
 
         //when
         AccountException exception = assertThrows(AccountException.class,
-                ()-> transactionService.useBalance(1L, "1234567890", 100L));
+                ()-> transactionService.useBalance(12L, "1234567890", 100L));
 
         //then
         assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, exception.getErrorCode());
     }
 
     @Test
-    @DisplayName("실패 트랜잭션 저장 성공")
+    @DisplayName("실패 트랜잭션은 기록 대기열에 넣기만 함")
     void saveFiledUseTransaction(){
+        //when
+        transactionService.saveFiledUseTransaction("1000000000", 200L);
+
+        //then
+        verify(failedTransactionRecorder, times(1)).record(USE, "1000000000", 200L);
+        verify(accountRepository, times(0)).findByAccountNumber(anyString());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("일괄 사용 - 잔액이 부족한 건만 실패로 기록하고 한 번에 저장")
+    void useBalanceBatch(){
         //given
         AccountUser user = AccountUser.builder()
                 .name("Pobi")
                 .build();
         user.setId(12L);
 
-        Account account = Account.builder()
-                .accountUser(user)
-                .accountStatus(IN_USE)
-                .accountNumber("1000000001")
-                .balance(10000L)
-                .build();
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
 
         given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountNumber("1000000000")
+                        .accountStatus(IN_USE)
+                        .balance(1000L)
+                        .build()));
 
-        given(transactionRepository.save(any()))
-                .willReturn(Transaction.builder()
-                        .account(account)
-                        .transactionType(USE)
-                        .transactionResultType(S)
-                        .transactionId("transactionId")
-                        .amount(1000L)
-                        .transactedAt(LocalDateTime.now())
-                        .balanceSnapshot(9000L)
-                        .build());
+        given(transactionRepository.saveAll(anyList()))
+                .willAnswer(invocation -> invocation.getArgument(0));
 
-        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
         //when
-        transactionService.saveFiledUseTransaction("1000000000", 200L);
+        List<UseBalanceBatch.Result> results = transactionService.useBalanceBatch("1000000000", Arrays.asList(
+                new UseBalance.Request(12L, "1000000000", 600L),
+                new UseBalance.Request(12L, "1000000000", 600L),
+                new UseBalance.Request(12L, "1000000000", 400L)));
 
         //then
-        verify(transactionRepository, times(1)).save(captor.capture());
-        assertEquals(200L, captor.getValue().getAmount());
-        assertEquals(10000L, captor.getValue().getBalanceSnapshot());
-        assertEquals(captor.getValue().getTransactionResultType(), F);
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        verify(transactionRepository, times(0)).save(any());
+        assertEquals(3, captor.getValue().size());
+        assertEquals(400L, captor.getValue().get(0).getBalanceSnapshot());
+        assertEquals(F, captor.getValue().get(1).getTransactionResultType());
+        assertEquals(0L, captor.getValue().get(2).getBalanceSnapshot());
+
+        assertEquals(S, results.get(0).getTransactionResult());
+        assertNull(results.get(0).getErrorCode());
+        assertEquals(F, results.get(1).getTransactionResult());
+        assertEquals(ErrorCode.AMOUNT_EXCED_BALANCE, results.get(1).getErrorCode());
+        assertEquals(S, results.get(2).getTransactionResult());
+    }
+
+    @Test
+    @DisplayName("이체 - 출금/입금과 두 거래 기록을 한 번에 저장")
+    void successTransfer(){
+        //given
+        Account from = transferAccount(1L, "1000000000", 10000L);
+        Account to = transferAccount(2L, "1000000001", 500L);
+
+        given(accountOwnershipCache.get("1000000000"))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(Arrays.asList(to, from));
+        given(transactionRepository.saveAll(anyList()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        //when
+        TransferDto transferDto = transactionService.transfer(12L, "1000000000", "1000000001", 3000L);
+
+        //then
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertEquals(TRANSFER_OUT, captor.getValue().get(0).getTransactionType());
+        assertEquals(7000L, captor.getValue().get(0).getBalanceSnapshot());
+        assertEquals(TRANSFER_IN, captor.getValue().get(1).getTransactionType());
+        assertEquals(3500L, captor.getValue().get(1).getBalanceSnapshot());
+        verify(accountSnapshotCache, times(1)).evict(1L);
+        verify(accountSnapshotCache, times(1)).evict(2L);
+
+        assertEquals("1000000000", transferDto.getWithdrawal().getAccountNumber());
+        assertEquals("1000000001", transferDto.getDeposit().getAccountNumber());
+        assertEquals(S, transferDto.getWithdrawal().getTransactionResultType());
+        assertEquals(3000L, transferDto.getDeposit().getAmount());
+    }
+
+    @Test
+    @DisplayName("이체 - 같은 계좌로는 이체 불가")
+    void transfer_sameAccount(){
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.transfer(12L, "1000000000", "1000000000", 3000L));
+
+        //then
+        assertEquals(ErrorCode.TRANSFER_SAME_ACCOUNT, exception.getErrorCode());
+        verify(accountRepository, times(0)).findByAccountNumberIn(anyCollection());
+    }
+
+    @Test
+    @DisplayName("이체 - 잔액 부족이면 어느 계좌도 바꾸지 않음")
+    void transfer_amountExceed(){
+        //given
+        Account from = transferAccount(1L, "1000000000", 1000L);
+        Account to = transferAccount(2L, "1000000001", 500L);
+
+        given(accountOwnershipCache.get("1000000000"))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(Arrays.asList(from, to));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.transfer(12L, "1000000000", "1000000001", 3000L));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCED_BALANCE, exception.getErrorCode());
+        assertEquals(1000L, from.getBalance());
+        assertEquals(500L, to.getBalance());
+        verify(transactionRepository, times(0)).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("이체 실패는 출금 계좌 기준으로 기록")
+    void saveFiledTransferTransaction(){
+        //when
+        transactionService.saveFiledTransferTransaction("1000000000", 200L);
+
+        //then
+        verify(failedTransactionRecorder, times(1)).record(TRANSFER_OUT, "1000000000", 200L);
+    }
+
+    private Account transferAccount(Long id, String accountNumber, Long balance) {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .accountNumber(accountNumber)
+                .balance(balance)
+                .build();
+        account.setId(id);
+        return account;
     }
 
     @Test
@@ -294,13 +592,15 @@ class TransactionServiceTest {
                 .account(account)
                 .transactionType(USE)
                 .transactionResultType(S)
-                .transactionId("transactionId")
+                .transactionId(1234L)
                 .amount(200L)
                 .transactedAt(LocalDateTime.now())
                 .balanceSnapshot(9000L)
                 .build();
 
 
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
 
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -315,18 +615,18 @@ class TransactionServiceTest {
                         .account(account)
                         .transactionType(CANCEL)
                         .transactionResultType(S)
-                        .transactionId("transactionIdForCancel")
+                        .transactionId(5678L)
                         .amount(200L)
                         .transactedAt(LocalDateTime.now())
                         .balanceSnapshot(10000L)
                         .build());
 
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(transaction));
+        given(transactionRepository.findViewByTransactionId(anyLong()))
+                .willReturn(Optional.of(view(transaction)));
 
         ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
         //when
-        TransactionDto transactionDto =  transactionService.cancelBalance("transactionId","1000000000", 200L);
+        TransactionDto transactionDto =  transactionService.cancelBalance(TRANSACTION_ID,"1000000000", 200L);
 
         //then
         verify(transactionRepository, times(1)).save(captor.capture());
@@ -343,28 +643,149 @@ class TransactionServiceTest {
     @DisplayName("해당 계좌 없음 - 계좌 사용 취소 실패")
     void cancelAccount_Not_Account(){
 
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(Transaction.builder()
-                        .build()));
+        given(transactionRepository.findViewByTransactionId(anyLong()))
+                .willReturn(Optional.of(view(Transaction.builder()
+                        .build())));
+        given(accountOwnershipCache.get(anyString()))
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_NOT_FOUNT));
 
         //when
         AccountException exception = assertThrows(AccountException.class,
-                ()-> transactionService.cancelBalance("transactionId", "1234567890", 100L));
+                ()-> transactionService.cancelBalance(TRANSACTION_ID, "1234567890", 100L));
 
         //then
         assertEquals(ErrorCode.ACCOUNT_NOT_FOUNT, exception.getErrorCode());
     }
 
+    @Test
+    @DisplayName("한 문장 update - 취소 입금 후 바뀐 잔액으로 거래 기록")
+    void successCancelBalance_atomic(){
+        //given
+        ReflectionTestUtils.setField(transactionService, "atomic", true);
+        given(transactionRepository.findViewByTransactionId(anyLong()))
+                .willReturn(Optional.of(usedView()));
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        given(accountRepository.creditAndGetBalance(1L, 200L))
+                .willReturn(Optional.of(10200L));
+        given(accountRepository.getReferenceById(1L))
+                .willReturn(Account.builder()
+                        .accountNumber("1000000000")
+                        .build());
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        TransactionDto transactionDto = transactionService.cancelBalance(TRANSACTION_ID, "1000000000", 200L);
+
+        //then
+        verify(accountRepository, times(0)).findByAccountNumber(anyString());
+        assertEquals(CANCEL, transactionDto.getTransactionType());
+        assertEquals(10200L, transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("한 문장 update - 취소 금액보다 잔액이 적으면 취소 실패")
+    void cancelBalance_atomicCancelMustFully(){
+        //given
+        ReflectionTestUtils.setField(transactionService, "atomic", true);
+        given(transactionRepository.findViewByTransactionId(anyLong()))
+                .willReturn(Optional.of(usedView()));
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        given(accountRepository.creditAndGetBalance(1L, 200L))
+                .willReturn(Optional.empty());
+        given(accountRepository.findBalanceById(1L))
+                .willReturn(Optional.of(100L));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                ()-> transactionService.cancelBalance(TRANSACTION_ID, "1000000000", 200L));
+
+        //then
+        assertEquals(ErrorCode.CANCEL_MUST_FULLY, exception.getErrorCode());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("낙관적 모드 - version 조건부 update로 취소 입금")
+    void successCancelBalance_optimistic(){
+        //given
+        ReflectionTestUtils.setField(transactionService, "optimistic", true);
+        Account account = cancelAccount(10000L);
+        given(transactionRepository.findViewByTransactionId(anyLong()))
+                .willReturn(Optional.of(usedView()));
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(accountRepository.creditIfUnchanged(1L, 3L, 200L))
+                .willReturn(1);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        TransactionDto transactionDto = transactionService.cancelBalance(TRANSACTION_ID, "1000000000", 200L);
+
+        //then
+        assertEquals(10200L, transactionDto.getBalanceSnapshot());
+        assertEquals(4L, account.getVersion());
+    }
+
+    @Test
+    @DisplayName("낙관적 모드 - 취소 금액보다 잔액이 적으면 취소 실패")
+    void cancelBalance_optimisticCancelMustFully(){
+        //given
+        ReflectionTestUtils.setField(transactionService, "optimistic", true);
+        given(transactionRepository.findViewByTransactionId(anyLong()))
+                .willReturn(Optional.of(usedView()));
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(cancelAccount(100L)));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                ()-> transactionService.cancelBalance(TRANSACTION_ID, "1000000000", 200L));
+
+        //then
+        assertEquals(ErrorCode.CANCEL_MUST_FULLY, exception.getErrorCode());
+        verify(accountRepository, times(0)).creditIfUnchanged(anyLong(), anyLong(), anyLong());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    private Account cancelAccount(Long balance) {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountNumber("1000000000")
+                .accountStatus(IN_USE)
+                .balance(balance)
+                .version(3L)
+                .build();
+        account.setId(1L);
+        return account;
+    }
+
+    //소유주 12의 200원 사용 거래
+    private static TransactionView usedView() {
+        return new TransactionView("1000000000", 12L, USE, S, 200L, 9800L, 1234L, LocalDateTime.now());
+    }
+
     @Test
     @DisplayName("해당 거래 없음 - 계좌 사용 취소 실패")
     void cancelAccount_Not_transaction(){
 
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionRepository.findViewByTransactionId(anyLong()))
                 .willReturn(Optional.empty());
 
         //when
         AccountException exception = assertThrows(AccountException.class,
-                ()-> transactionService.cancelBalance("transactionId", "1234567890", 100L));
+                ()-> transactionService.cancelBalance(TRANSACTION_ID, "1234567890", 100L));
 
         //then
         assertEquals(ErrorCode.Transaction_IS_NOT_Find, exception.getErrorCode());
@@ -402,14 +823,17 @@ class TransactionServiceTest {
                 .account(account)
                 .transactionType(USE)
                 .transactionResultType(S)
-                .transactionId("transactionId")
+                .transactionId(1234L)
                 .amount(200L)
                 .transactedAt(LocalDateTime.now())
                 .balanceSnapshot(9000L)
                 .build();
 
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(transaction));
+        given(transactionRepository.findViewByTransactionId(anyLong()))
+                .willReturn(Optional.of(view(transaction)));
+
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(2L, user2.getId(), IN_USE));
 
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(accountNotUse));
@@ -417,7 +841,7 @@ class TransactionServiceTest {
 
         //when
         AccountException exception = assertThrows(AccountException.class,
-                ()-> transactionService.cancelBalance("transactionId", "1234567890", 200L));
+                ()-> transactionService.cancelBalance(TRANSACTION_ID, "1234567890", 200L));
 
         //then
         assertEquals(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH, exception.getErrorCode());
@@ -497,38 +921,143 @@ class TransactionServiceTest {
                 .account(account)
                 .transactionType(USE)
                 .transactionResultType(S)
-                .transactionId("transactionId")
+                .transactionId(1234L)
                 .amount(200L)
                 .transactedAt(LocalDateTime.now())
                 .balanceSnapshot(9000L)
                 .build();
 
-                given(transactionRepository.findByTransactionId(anyString()))
-                        .willReturn(Optional.of(transaction));
+                given(transactionRepository.findViewByTransactionId(anyLong()))
+                        .willReturn(Optional.of(view(transaction)));
 
                 //when
 
-                TransactionDto transactionDto = transactionService.queryTransactionId("trxId");
+                TransactionDto transactionDto = transactionService.queryTransactionId(TRANSACTION_ID);
 
                 //then
         assertEquals(USE,transactionDto.getTransactionType());
         assertEquals(S,transactionDto.getTransactionResultType());
         assertEquals(200L,transactionDto.getAmount());
-        assertEquals("transactionId",transactionDto.getTransactionId());
+        assertEquals(TRANSACTION_ID,transactionDto.getTransactionId());
     }
 
     @Test
     @DisplayName("원ㄹ거래 없음 - 거래 조회 실패")
     void queryTransaction_Transaction_Not_Found(){
         //given
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionRepository.findViewByTransactionId(anyLong()))
                 .willReturn(Optional.empty());
 
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                ()-> transactionService.queryTransactionId(TRANSACTION_ID));
+
+        //then
+        assertEquals(ErrorCode.Transaction_IS_NOT_Find, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("1년이 지나 archive로 옮겨진 거래도 조회")
+    void queryTransaction_archived(){
+        //given
+        given(transactionRepository.findViewByTransactionId(1234L))
+                .willReturn(Optional.empty());
+        given(transactionArchive.find(1234L))
+                .willReturn(Optional.of(new TransactionView("1000000012", 12L, USE, S,
+                        200L, 9000L, 1234L, LocalDateTime.now().minusYears(2))));
+
+        //when
+        TransactionDto transactionDto = transactionService.queryTransactionId(TRANSACTION_ID);
+
+        //then
+        assertEquals("1000000012", transactionDto.getAccountNumber());
+        assertEquals(200L, transactionDto.getAmount());
+        assertEquals(TRANSACTION_ID, transactionDto.getTransactionId());
+    }
+
+    @Test
+    @DisplayName("거래번호 형식이 맞지 않음 - 거래 조회 실패")
+    void queryTransaction_InvalidTransactionId(){
         //when
         AccountException exception = assertThrows(AccountException.class,
                 ()-> transactionService.queryTransactionId("transactionId"));
 
         //then
         assertEquals(ErrorCode.Transaction_IS_NOT_Find, exception.getErrorCode());
+        verify(transactionRepository, times(0)).findViewByTransactionId(anyLong());
+    }
+
+    @Test
+    @DisplayName("거래 내역 - size+1건을 읽어서 다음 페이지 커서 생성")
+    void getTransactionHistory(){
+        //given
+        LocalDateTime now = LocalDateTime.now();
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        given(transactionRepository.findHistory(1L, USE, null, PageRequest.of(0, 3)))
+                .willReturn(Arrays.asList(
+                        new TransactionHistoryItem(30L, USE, S, 100L, 9700L, 1236L, now),
+                        new TransactionHistoryItem(20L, USE, S, 100L, 9800L, 1235L, now.minusSeconds(1)),
+                        new TransactionHistoryItem(10L, USE, S, 100L, 9900L, 1234L, now.minusSeconds(2))));
+
+        //when
+        TransactionHistory history = transactionService.getTransactionHistory(
+                "1000000000", null, 2, USE, null);
+
+        //then
+        assertEquals(2, history.getTransactions().size());
+        assertEquals(TransactionIdCodec.encode(1236L), history.getTransactions().get(0).getTransactionId());
+        TransactionCursor cursor = TransactionCursor.decode(history.getNextCursor());
+        assertEquals(20L, cursor.getId());
+        assertEquals(now.minusSeconds(1), cursor.getTransactedAt());
+    }
+
+    @Test
+    @DisplayName("거래 내역 - 커서 다음 페이지가 마지막이면 nextCursor 없음")
+    void getTransactionHistory_lastPage(){
+        //given
+        LocalDateTime transactedAt = LocalDateTime.now();
+        String cursor = new TransactionCursor(transactedAt, 20L).encode();
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+        given(transactionRepository.findHistoryAfter(1L, null, null, transactedAt, 20L, PageRequest.of(0, 3)))
+                .willReturn(Arrays.asList(
+                        new TransactionHistoryItem(10L, USE, S, 100L, 9900L, 1234L, transactedAt.minusSeconds(1))));
+
+        //when
+        TransactionHistory history = transactionService.getTransactionHistory(
+                "1000000000", cursor, 2, null, null);
+
+        //then
+        assertEquals(1, history.getTransactions().size());
+        assertNull(history.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("거래 내역 - 커서 형식이 맞지 않음")
+    void getTransactionHistory_invalidCursor(){
+        //given
+        given(accountOwnershipCache.get(anyString()))
+                .willReturn(new AccountOwnership(1L, 12L, IN_USE));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                ()-> transactionService.getTransactionHistory("1000000000", "not-a-cursor", 20, null, null));
+
+        //then
+        assertEquals(ErrorCode.INVALID_CURSOR, exception.getErrorCode());
+    }
+
+    private static TransactionView view(Transaction transaction) {
+        Account account = transaction.getAccount();
+        return new TransactionView(
+                account == null ? null : account.getAccountNumber(),
+                account == null ? null : account.getAccountUser().getId(),
+                transaction.getTransactionType(),
+                transaction.getTransactionResultType(),
+                transaction.getAmount(),
+                transaction.getBalanceSnapshot(),
+                transaction.getTransactionId(),
+                transaction.getTransactedAt());
     }
-}
\ No newline at end of file
+}